@@ -0,0 +1,56 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import com.marko.flawlessJsonHtml.html.HtmlUtils;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attribute formatting for a typical element with plain and style attributes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AttributesBenchmark {
+
+    private JSONObject attributes;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        attributes = new JSONObject()
+                .put("id", "42")
+                .put("class", "card highlighted")
+                .put("title", "Tom & Jerry")
+                .put("style", new JSONObject()
+                        .put("width", "80%")
+                        .put("height", "10px")
+                        .put("text-align", "center"));
+        buffer = new StringBuilder(256);
+    }
+
+    @Benchmark
+    public String formatAttributes() {
+        return HtmlUtils.formatAttributes(attributes);
+    }
+
+    @Benchmark
+    public StringBuilder formatAttributesIntoBuffer() {
+        buffer.setLength(0);
+        HtmlUtils.formatAttributes(attributes, buffer);
+        return buffer;
+    }
+}
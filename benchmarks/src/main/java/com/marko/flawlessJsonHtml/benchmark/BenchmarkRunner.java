@@ -0,0 +1,32 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar.
+ * <p>
+ * Accepts the regular JMH command line and always adds the GC profiler, so the
+ * standard run reports allocated bytes per operation next to the timings.
+ * Usage: java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
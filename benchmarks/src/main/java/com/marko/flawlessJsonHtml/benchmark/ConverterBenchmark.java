@@ -0,0 +1,127 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.FlatJsonDocument;
+import com.marko.flawlessJsonHtml.model.JsonBackend;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse, build and full conversion stages over generated documents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConverterBenchmark {
+
+    @Param({"TINY", "WIDE", "DEEP", "LARGE", "REPETITIVE"})
+    public DocumentGenerator.Shape shape;
+
+    private JSONObject document;
+    private JSONObject body;
+    private String json;
+    private JsonHtmlConverter converter;
+    private JsonHtmlConverter parallelConverter;
+    private JsonHtmlConverter memoizingConverter;
+    private HtmlElementBuilder elementBuilder;
+    private final StringBuilder sink = new StringBuilder();
+
+    @Setup
+    public void setUp() {
+        document = DocumentGenerator.generate(shape);
+        body = document.getJSONObject("body");
+        json = document.toString();
+        converter = new JsonHtmlConverter();
+        parallelConverter = new JsonHtmlConverter(new HtmlElementBuilder(
+                ForkJoinPool.commonPool(), HtmlElementBuilder.DEFAULT_PARALLEL_THRESHOLD));
+        memoizingConverter = new JsonHtmlConverter(new HtmlElementBuilder().withMemoization(
+                HtmlElementBuilder.DEFAULT_MEMO_ENTRIES, HtmlElementBuilder.DEFAULT_MEMO_CHARS));
+        elementBuilder = new HtmlElementBuilder();
+    }
+
+    @Benchmark
+    public JSONObject parse() {
+        return new JSONObject(json);
+    }
+
+    @Benchmark
+    public FlatJsonDocument parseNative() throws JsonHtmlConversionException {
+        return FlatJsonDocument.parse(json);
+    }
+
+    @Benchmark
+    public StringBuilder buildBodyElements() throws LimitExceededException {
+        StringBuilder html = new StringBuilder();
+        elementBuilder.buildBodyElements(body, html, 2);
+        return html;
+    }
+
+    @Benchmark
+    public String convert() throws JsonHtmlConversionException {
+        return converter.convert(document);
+    }
+
+    @Benchmark
+    public StringBuilder convertIntoSink() throws JsonHtmlConversionException, IOException {
+        sink.setLength(0);
+        converter.convert(document, sink, ConversionMetrics.NOOP);
+        return sink;
+    }
+
+    @Benchmark
+    public String convertParallel() throws JsonHtmlConversionException {
+        return parallelConverter.convert(document);
+    }
+
+    @Benchmark
+    public String convertMemoized() throws JsonHtmlConversionException {
+        return memoizingConverter.convert(document);
+    }
+
+    @Benchmark
+    public String parseAndConvert() throws JsonHtmlConversionException {
+        return converter.convert(new JSONObject(json));
+    }
+
+    @Benchmark
+    public String parseAndConvertNative() throws JsonHtmlConversionException {
+        return converter.convert(JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED), ConversionMetrics.NOOP);
+    }
+
+    @Benchmark
+    public String parseAndConvertNativeMemoized() throws JsonHtmlConversionException {
+        return memoizingConverter.convert(
+                JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED), ConversionMetrics.NOOP);
+    }
+
+    @Benchmark
+    public StringWriter convertStreaming() throws JsonHtmlConversionException, IOException {
+        StringWriter html = new StringWriter();
+        converter.convert(new StringReader(json), html);
+        return html;
+    }
+}
@@ -0,0 +1,148 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Generates page specifications of different shapes for the benchmarks.
+ */
+public final class DocumentGenerator {
+
+    /**
+     * Document shapes, from the size of the sample {@code input.json} up to multi-megabyte pages.
+     */
+    public enum Shape {
+        /** Same structure as the sample input.json, about 1 KB. */
+        TINY,
+        /** A body with thousands of sibling sections and long lists. */
+        WIDE,
+        /** Divs nested a few hundred levels deep. */
+        DEEP,
+        /** Many sections with nested content, several megabytes of JSON. */
+        LARGE,
+        /** Sections that share the same navigation and footer blocks, as generated specs do. */
+        REPETITIVE
+    }
+
+    private static final int WIDE_SECTIONS = 5_000;
+    private static final int DEEP_LEVELS = 300;
+    private static final int LARGE_SECTIONS = 20_000;
+    private static final int REPETITIVE_SECTIONS = 2_000;
+    private static final int NAVIGATION_LINKS = 30;
+
+    private DocumentGenerator() {
+        // Utility class - prevent instantiation
+    }
+
+    public static JSONObject generate(Shape shape) {
+        return switch (shape) {
+            case TINY -> tiny();
+            case WIDE -> page(sections(WIDE_SECTIONS, 0));
+            case DEEP -> page(new JSONObject().put("div", nested(DEEP_LEVELS)));
+            case LARGE -> page(sections(LARGE_SECTIONS, 3));
+            case REPETITIVE -> page(repeatedSections());
+        };
+    }
+
+    private static JSONObject tiny() {
+        JSONObject head = new JSONObject()
+                .put("meta", new JSONObject()
+                        .put("charset", "utf-8")
+                        .put("author", "Flawless Code")
+                        .put("keywords", "JSON, HTML, transform"))
+                .put("link", new JSONArray()
+                        .put(new JSONObject().put("href", "style.css").put("rel", "stylesheet").put("type", "text/css"))
+                        .put(new JSONObject().put("rel", "icon").put("href", "icon.ico")))
+                .put("title", "Hello World v10");
+
+        JSONObject body = new JSONObject()
+                .put("attributes", new JSONObject()
+                        .put("id", "42")
+                        .put("style", new JSONObject()
+                                .put("width", "80%")
+                                .put("height", "10px")
+                                .put("text-align", "center")))
+                .put("h1", "Json-Generated HTML page")
+                .put("p", "Example HTML file generated from JSON.")
+                .put("h2", "Imagine smart subtitle here")
+                .put("div", new JSONObject()
+                        .put("attributes", new JSONObject().put("class", "nested"))
+                        .put("h3", "Nesting supported"));
+
+        return new JSONObject()
+                .put("doctype", "html")
+                .put("language", "en")
+                .put("head", head)
+                .put("body", body);
+    }
+
+    private static JSONObject page(JSONObject body) {
+        JSONObject root = tiny();
+        root.put("body", body.put("attributes", new JSONObject().put("class", "generated")));
+        return root;
+    }
+
+    private static JSONObject sections(int count, int nestedLists) {
+        JSONArray sections = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            JSONObject section = new JSONObject()
+                    .put("attributes", new JSONObject()
+                            .put("id", "section-" + i)
+                            .put("class", "card")
+                            .put("data-title", "Section \"" + i + "\""))
+                    .put("h2", "Section " + i)
+                    .put("p", "Text for section " + i + " with <markup> & entities that need escaping.")
+                    .put("img", new JSONObject().put("src", "image-" + i + ".png").put("alt", "Image " + i));
+
+            JSONArray items = new JSONArray();
+            for (int j = 0; j < nestedLists; j++) {
+                items.put("Item " + j + " of section " + i);
+            }
+            if (nestedLists > 0) {
+                section.put("ul", new JSONObject().put("li", items));
+            }
+            sections.put(section);
+        }
+        return new JSONObject().put("section", sections);
+    }
+
+    private static JSONObject repeatedSections() {
+        JSONArray links = new JSONArray();
+        for (int i = 0; i < NAVIGATION_LINKS; i++) {
+            links.put(new JSONObject().put("a", new JSONObject()
+                    .put("attributes", new JSONObject().put("href", "/docs/page-" + i + "?lang=en&v=2"))
+                    .put("span", "Page <" + i + ">")));
+        }
+        JSONObject nav = new JSONObject()
+                .put("attributes", new JSONObject().put("class", "site-nav"))
+                .put("ul", new JSONObject().put("li", links));
+        JSONObject footer = new JSONObject()
+                .put("p", "Generated specification & reference")
+                .put("link", new JSONArray()
+                        .put(new JSONObject().put("rel", "license").put("href", "/license"))
+                        .put(new JSONObject().put("rel", "help").put("href", "/help")));
+
+        // The same objects are put into every section, as a generator reusing its templates would
+        JSONArray sections = new JSONArray();
+        for (int i = 0; i < REPETITIVE_SECTIONS; i++) {
+            sections.put(new JSONObject()
+                    .put("h2", "Section " + i)
+                    .put("nav", nav)
+                    .put("p", "Text for section " + i + ".")
+                    .put("footer", footer));
+        }
+        return new JSONObject().put("section", sections);
+    }
+
+    private static JSONObject nested(int levels) {
+        JSONObject innermost = new JSONObject().put("p", "Deepest paragraph");
+        JSONObject current = innermost;
+        for (int i = 0; i < levels; i++) {
+            current = new JSONObject()
+                    .put("attributes", new JSONObject().put("class", "level-" + i))
+                    .put("span", "Level " + i)
+                    .put("div", current);
+        }
+        return current;
+    }
+}
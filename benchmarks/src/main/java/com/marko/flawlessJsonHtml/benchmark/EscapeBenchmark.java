@@ -0,0 +1,87 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.html.HtmlUtils;
+import com.marko.flawlessJsonHtml.model.FlatJsonDocument;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escaping of text and attribute values, for clean input (the common case) and input needing escapes.
+ * The JSON variants start from a parsed value: decoded first and then escaped, or both in one pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EscapeBenchmark {
+
+    @Param({"clean", "dirty"})
+    public String kind;
+
+    private String text;
+    private StringBuilder buffer;
+    private JsonNode value;
+
+    @Setup
+    public void setUp() throws JsonHtmlConversionException {
+        text = "clean".equals(kind)
+                ? "Example HTML file generated from JSON with a fairly ordinary sentence."
+                : "Tom & Jerry say \"<hello>\" to 'everyone' & leave.";
+        buffer = new StringBuilder(256);
+        value = FlatJsonDocument.parse(new JSONObject().put("p", text).toString()).root().value(0);
+    }
+
+    @Benchmark
+    public String escapeContent() {
+        return HtmlUtils.escapeContent(text);
+    }
+
+    @Benchmark
+    public String escapeAttribute() {
+        return HtmlUtils.escapeAttribute(text);
+    }
+
+    @Benchmark
+    public StringBuilder escapeContentIntoBuffer() {
+        buffer.setLength(0);
+        HtmlUtils.escapeContent(text, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public StringBuilder escapeAttributeIntoBuffer() {
+        buffer.setLength(0);
+        HtmlUtils.escapeAttribute(text, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public StringBuilder decodeThenEscapeContent() {
+        buffer.setLength(0);
+        HtmlUtils.escapeContent(value.text(), buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public StringBuilder escapeJsonContent() {
+        buffer.setLength(0);
+        HtmlUtils.escapeContent(value, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,88 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import com.marko.flawlessJsonHtml.app.JsonHtmlConverterApp;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end file read, convert and write through {@link JsonHtmlConverterApp}.
+ * <p>
+ * The input file is rewritten before every invocation so the app's plan cache
+ * sees a modified file and the full read and render path is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileConversionBenchmark {
+
+    @Param({"TINY", "LARGE"})
+    public DocumentGenerator.Shape shape;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private Path directory;
+    private Path input;
+    private String json;
+    private String[] args;
+    private JsonHtmlConverterApp app;
+    private long revision;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Keeps warnings the app may log from dominating the tiny case
+        LogManager.getLogManager().reset();
+
+        directory = Files.createTempDirectory("json-html-bench");
+        input = directory.resolve("input.json");
+        Path output = directory.resolve("output.html");
+        json = DocumentGenerator.generate(shape).toString();
+        args = streaming
+                ? new String[] {"--stream", input.toString(), output.toString()}
+                : new String[] {input.toString(), output.toString()};
+        app = new JsonHtmlConverterApp();
+    }
+
+    @Setup(Level.Invocation)
+    public void touchInput() throws IOException {
+        Files.writeString(input, json);
+        Files.setLastModifiedTime(input, java.nio.file.attribute.FileTime.fromMillis(++revision));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void readConvertWrite() throws JsonHtmlConversionException, IOException {
+        app.run(args);
+    }
+}
@@ -0,0 +1,89 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.SharedHead;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A site of small pages sharing one head: a full conversion per page against one head render
+ * plus a body render per page. Both run on one thread and write UTF-8 to a discarding stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SiteBenchmark {
+
+    @Param({"10", "100"})
+    public int pages;
+
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private JsonHtmlConverter converter;
+    private JsonNode site;
+    private List<JsonNode> documents;
+    private List<JsonNode> bodies;
+
+    @Setup
+    public void setUp() {
+        converter = new JsonHtmlConverter();
+        JSONObject template = DocumentGenerator.generate(DocumentGenerator.Shape.TINY);
+        JSONObject pageBodies = new JSONObject();
+        documents = new ArrayList<>(pages);
+        bodies = new ArrayList<>(pages);
+        for (int i = 0; i < pages; i++) {
+            JSONObject body = new JSONObject(template.getJSONObject("body").toString()).put("h1", "Page " + i);
+            JSONObject document = new JSONObject(template.toString()).put("body", body);
+            pageBodies.put("page-" + i, body);
+            documents.add(OrgJsonNode.of(document));
+            bodies.add(OrgJsonNode.of(body));
+        }
+        JSONObject root = new JSONObject(template.toString());
+        root.remove("body");
+        site = OrgJsonNode.of(root.put("pages", pageBodies));
+    }
+
+    @Benchmark
+    public OutputStream convertEachPage() throws JsonHtmlConversionException, IOException {
+        for (JsonNode document : documents) {
+            Writer writer = new OutputStreamWriter(sink, StandardCharsets.UTF_8);
+            converter.convert(document, writer, ConversionMetrics.NOOP);
+            writer.flush();
+        }
+        return sink;
+    }
+
+    @Benchmark
+    public OutputStream convertWithSharedHead() throws JsonHtmlConversionException, IOException {
+        SharedHead head = converter.renderHead(site, ConversionMetrics.NOOP);
+        for (JsonNode body : bodies) {
+            converter.convertPage(head, body, sink, ConversionMetrics.NOOP);
+        }
+        return sink;
+    }
+}
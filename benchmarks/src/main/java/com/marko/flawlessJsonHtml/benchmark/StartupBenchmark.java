@@ -0,0 +1,126 @@
+package com.marko.flawlessJsonHtml.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Wall time of converting one small page in a fresh JVM, the way pipelines call the
+ * jar-with-dependencies once per page.
+ * <p>
+ * Needs the startup build, {@code mvn -Pstartup package}, which leaves the jar and its AppCDS
+ * archive in target/. Run from the project root or pass -Dstartup.target=path/to/target.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String JAR = "json-html-converter-1.0.0-jar-with-dependencies.jar";
+    private static final String ARCHIVE = "json-html-converter.jsa";
+
+    /**
+     * JVM options of the measured launch.
+     */
+    public enum Launch {
+        /** Plain {@code java -jar}. */
+        DEFAULT(false),
+        /** With the AppCDS archive from the training run. */
+        APPCDS(true),
+        /** With the archive and only the C1 compiler, which suits runs this short. */
+        APPCDS_C1(true, "-XX:TieredStopAtLevel=1");
+
+        private final boolean archive;
+        private final List<String> options;
+
+        Launch(boolean archive, String... options) {
+            this.archive = archive;
+            this.options = List.of(options);
+        }
+    }
+
+    @Param({"DEFAULT", "APPCDS", "APPCDS_C1"})
+    public Launch launch;
+
+    private Path directory;
+    private List<String> command;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        Path target = Paths.get(System.getProperty("startup.target", "target")).toAbsolutePath();
+        Path jar = target.resolve(JAR);
+        Path archive = target.resolve(ARCHIVE);
+        if (!Files.exists(jar) || (launch.archive && !Files.exists(archive))) {
+            throw new IllegalStateException("Build " + jar + " and " + archive + " with mvn -Pstartup package");
+        }
+
+        directory = Files.createTempDirectory("json-html-startup");
+        Path input = directory.resolve("input.json");
+        Files.writeString(input, DocumentGenerator.generate(DocumentGenerator.Shape.TINY).toString());
+
+        command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (launch.archive) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.addAll(launch.options);
+        command.addAll(List.of("-jar", jar.toString(), input.toString(), directory.resolve("output.html").toString()));
+
+        if (launch.archive) {
+            // An archive from another JDK or jar is silently ignored, so check once that it maps
+            List<String> check = new ArrayList<>(command);
+            check.add(1, "-Xshare:on");
+            if (run(check) != 0) {
+                throw new IllegalStateException(archive + " does not match this JVM; rebuild it with mvn -Pstartup package");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int convertPage() throws IOException, InterruptedException {
+        int exitCode = run(command);
+        if (exitCode != 0) {
+            throw new IllegalStateException("Conversion exited with " + exitCode);
+        }
+        return exitCode;
+    }
+
+    private static int run(List<String> command) throws IOException, InterruptedException {
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start()
+                .waitFor();
+    }
+}
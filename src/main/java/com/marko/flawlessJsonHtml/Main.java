@@ -12,17 +12,24 @@ import java.util.logging.Logger;
  */
 public class Main {
 
-    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
     private static final int SUCCESS_EXIT_CODE = 0;
     private static final int ERROR_EXIT_CODE = 1;
 
+    /**
+     * Holds the logger, so java.util.logging, whose setup is a large share of a short run,
+     * only starts once something is actually logged.
+     */
+    private static final class Log {
+        private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    }
+
     public static void main(String[] args) {
         try {
             JsonHtmlConverterApp app = new JsonHtmlConverterApp();
             app.run(args);
             System.exit(SUCCESS_EXIT_CODE);
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Application failed", e);
+            Log.LOGGER.log(Level.SEVERE, "Application failed", e);
             System.err.println("Error: " + e.getMessage());
             System.exit(ERROR_EXIT_CODE);
         }
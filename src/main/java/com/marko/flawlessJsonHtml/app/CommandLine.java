@@ -0,0 +1,89 @@
+package com.marko.flawlessJsonHtml.app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal command line parser supporting {@code --flag}, {@code --option=value} and positional arguments.
+ */
+final class CommandLine {
+
+    private final Set<String> flags = new HashSet<>();
+    private final Map<String, String> values = new HashMap<>();
+    private final List<String> positional = new ArrayList<>();
+
+    private CommandLine() {
+    }
+
+    /**
+     * Parses arguments, rejecting options that are not listed as known.
+     *
+     * @param args raw command line arguments
+     * @param knownFlags options without a value
+     * @param knownValueOptions options written as {@code --name=value}
+     * @param usage usage text appended to error messages
+     * @return parsed command line
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    static CommandLine parse(String[] args, Set<String> knownFlags, Set<String> knownValueOptions, String usage) {
+        CommandLine commandLine = new CommandLine();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                commandLine.positional.add(arg);
+                continue;
+            }
+
+            int separator = arg.indexOf('=');
+            if (separator < 0 && knownFlags.contains(arg)) {
+                commandLine.flags.add(arg);
+            } else if (separator > 0 && knownValueOptions.contains(arg.substring(0, separator))) {
+                commandLine.values.put(arg.substring(0, separator), arg.substring(separator + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg + "\n" + usage);
+            }
+        }
+
+        return commandLine;
+    }
+
+    boolean has(String flag) {
+        return flags.contains(flag);
+    }
+
+    String value(String option, String defaultValue) {
+        return values.getOrDefault(option, defaultValue);
+    }
+
+    int intValue(String option, int defaultValue) {
+        String value = values.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + option + " expects a number: " + value, e);
+        }
+    }
+
+    long longValue(String option, long defaultValue) {
+        String value = values.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + option + " expects a number: " + value, e);
+        }
+    }
+
+    List<String> positional() {
+        return positional;
+    }
+}
@@ -1,72 +1,624 @@
 package com.marko.flawlessJsonHtml.app;
 
 
+import com.marko.flawlessJsonHtml.batch.BatchConverter;
+import com.marko.flawlessJsonHtml.batch.BatchInputResolver;
+import com.marko.flawlessJsonHtml.batch.BatchReport;
+import com.marko.flawlessJsonHtml.batch.BatchResult;
+import com.marko.flawlessJsonHtml.batch.BatchTask;
+import com.marko.flawlessJsonHtml.batch.PipelinedBatchConverter;
+import com.marko.flawlessJsonHtml.cache.OutputCache;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
 import com.marko.flawlessJsonHtml.converter.FileConfig;
 import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
 import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.converter.OutputBufferPool;
 import com.marko.flawlessJsonHtml.Main;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import com.marko.flawlessJsonHtml.io.AtomicFiles;
+import com.marko.flawlessJsonHtml.io.ChannelOutputStream;
+import com.marko.flawlessJsonHtml.io.ChannelWriter;
+import com.marko.flawlessJsonHtml.io.Compression;
+import com.marko.flawlessJsonHtml.io.DirectBufferPool;
+import com.marko.flawlessJsonHtml.io.MappedUtf8Reader;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.metrics.DocumentMetrics;
+import com.marko.flawlessJsonHtml.metrics.MetricsAggregator;
+import com.marko.flawlessJsonHtml.model.JsonBackend;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
+import com.marko.flawlessJsonHtml.server.ConversionServer;
+import com.marko.flawlessJsonHtml.server.RenderedPageCache;
+import com.marko.flawlessJsonHtml.site.SiteRenderer;
+import com.marko.flawlessJsonHtml.template.RenderPlan;
+import com.marko.flawlessJsonHtml.template.RenderPlanCompiler;
+import com.marko.flawlessJsonHtml.template.RecordRenderer;
+import com.marko.flawlessJsonHtml.watch.DocumentWatcher;
+import com.marko.flawlessJsonHtml.watch.IncrementalHtmlRenderer;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 public  class JsonHtmlConverterApp {
 
-    private final JsonHtmlConverter converter;
+    private HtmlElementBuilder elementBuilder;
+    private JsonHtmlConverter converter;
+    private RenderPlanCompiler planCompiler;
+    private final DirectBufferPool bufferPool;
+    private Compression compression = Compression.NONE;
+    private JsonBackend jsonBackend = JsonBackend.ORG_JSON;
+    private OutputCache outputCache;
+    private static final int PAGE_CACHE_ENTRIES = 256;
+    private static final long PAGE_CACHE_BYTES = 64L * 1024 * 1024;
     private static final String DEFAULT_INPUT_FILE = "input.json";
     private static final String DEFAULT_OUTPUT_FILE = "output.html";
-    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    private static final String STREAM_OPTION = "--stream";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String EXECUTOR_OPTION = "--executor";
+    private static final String TEMPLATE_OPTION = "--template";
+    private static final String NAME_FIELD_OPTION = "--name-field";
+    private static final String SITE_OPTION = "--site";
+    private static final String SERVE_OPTION = "--serve";
+    private static final String PORT_OPTION = "--port";
+    private static final String METRICS_OPTION = "--metrics";
+    private static final String MMAP_OPTION = "--mmap";
+    private static final String WATCH_OPTION = "--watch";
+    private static final String PARALLEL_OPTION = "--parallel";
+    private static final String MINIFY_OPTION = "--minify";
+    private static final String COMPRESS_OPTION = "--compress";
+    private static final String ITERATIVE_OPTION = "--iterative";
+    private static final String MEMOIZE_OPTION = "--memoize";
+    private static final String MAX_INPUT_BYTES_OPTION = "--max-input-bytes";
+    private static final String MAX_DEPTH_OPTION = "--max-depth";
+    private static final String MAX_ELEMENTS_OPTION = "--max-elements";
+    private static final String MAX_ARRAY_LENGTH_OPTION = "--max-array-length";
+    private static final String MAX_OUTPUT_BYTES_OPTION = "--max-output-bytes";
+    private static final String JSON_OPTION = "--json";
+    private static final String CACHE_OPTION = "--cache";
+    private static final String CACHE_MAX_BYTES_OPTION = "--cache-max-bytes";
+    private static final String PIPELINE_OPTION = "--pipeline";
+    private static final String READ_THREADS_OPTION = "--read-threads";
+    private static final String WRITE_THREADS_OPTION = "--write-threads";
+    private static final String QUEUE_CAPACITY_OPTION = "--queue-capacity";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+    private static final String USAGE =
+            "Usage: java main.java.com.marko.flawlessJsonHtml.Main [--stream] [--mmap] [--parallel]"
+            + " [--minify] [--compress=gzip|deflate] [--metrics=summary.json] [input.json] [output.html]\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --watch [--minify] [input.json] [output.html]\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --batch [--stream] [--mmap] [--parallel]"
+            + " [--minify] [--compress=gzip|deflate] [--threads=N] [--executor=fork-join|virtual] [--metrics=summary.json] <outputDir> <dir|glob|@manifest|file>...\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --batch --pipeline [--threads=N] [--read-threads=N]"
+            + " [--write-threads=N] [--queue-capacity=N] [options] <outputDir> <dir|glob|@manifest|file>...\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --template [--name-field=key]"
+            + " <template.json> <records.jsonl> <outputDir>\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --site [--minify] [--compress=gzip|deflate]"
+            + " [--threads=N] <site.json> <outputDir>\n"
+            + "       java main.java.com.marko.flawlessJsonHtml.Main --serve [--port=8080] [--threads=N]"
+            + " [--executor=fork-join|virtual]\n"
+            + "Any mode also accepts [--iterative] [--memoize] (with --json=native) [--max-input-bytes=N] [--max-depth=N] [--max-elements=N]"
+            + " [--max-array-length=N] [--max-output-bytes=N]; --serve starts from conservative limits\n"
+            + "File conversions, templates and sites accept [--json=org|native] to choose the JSON parser;"
+            + " native is strict RFC 8259 JSON and keeps duplicate keys\n"
+            + "file and batch conversions accept [--cache=dir] [--cache-max-bytes=N] to skip unchanged inputs";
+
+    /**
+     * A single file conversion logs nothing unless something goes wrong, so the logger is
+     * only created on first use.
+     */
+    private static final class Log {
+        private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    }
 
     public JsonHtmlConverterApp() {
-        this.converter = new JsonHtmlConverter();
+        this.elementBuilder = new HtmlElementBuilder();
+        this.converter = new JsonHtmlConverter(elementBuilder);
+        this.planCompiler = new RenderPlanCompiler(converter);
+        this.bufferPool = new DirectBufferPool(DirectBufferPool.DEFAULT_BUFFER_SIZE,
+                Runtime.getRuntime().availableProcessors() * 2);
     }
 
     /**
      * Runs the conversion process.
      *
-     * @param args command line arguments [inputFile] [outputFile]
+     * @param args command line arguments [--stream] [--mmap] [--minify] [--compress=gzip|deflate]
+     *             [inputFile] [outputFile],
+     *             --batch [options] outputDir inputs...,
+     *             --template [--name-field=key] template records outputDir,
+     *             --site [--threads=N] site outputDir,
+     *             --watch [inputFile] [outputFile] or --serve [options] to run until the JVM is stopped
      * @throws JsonHtmlConversionException if conversion fails
      * @throws IOException if file operations fail
      */
     public void run(String[] args) throws JsonHtmlConversionException, IOException {
-        FileConfig config = parseArguments(args);
+        CommandLine commandLine = CommandLine.parse(
+                args,
+                Set.of(STREAM_OPTION, MMAP_OPTION, PARALLEL_OPTION, MINIFY_OPTION, ITERATIVE_OPTION, BATCH_OPTION,
+                        TEMPLATE_OPTION, SITE_OPTION, SERVE_OPTION, WATCH_OPTION, PIPELINE_OPTION, MEMOIZE_OPTION),
+                Set.of(THREADS_OPTION, EXECUTOR_OPTION, NAME_FIELD_OPTION, PORT_OPTION, METRICS_OPTION,
+                        COMPRESS_OPTION, MAX_INPUT_BYTES_OPTION, MAX_DEPTH_OPTION, MAX_ELEMENTS_OPTION,
+                        MAX_ARRAY_LENGTH_OPTION, MAX_OUTPUT_BYTES_OPTION, JSON_OPTION, CACHE_OPTION,
+                        CACHE_MAX_BYTES_OPTION, READ_THREADS_OPTION, WRITE_THREADS_OPTION, QUEUE_CAPACITY_OPTION),
+                USAGE
+        );
+        configureRendering(commandLine);
+
+        if (commandLine.has(BATCH_OPTION)) {
+            openOutputCache(commandLine);
+            try {
+                runBatch(commandLine);
+            } finally {
+                closeOutputCache();
+            }
+            return;
+        }
+        if (commandLine.has(TEMPLATE_OPTION)) {
+            runTemplate(commandLine);
+            return;
+        }
+        if (commandLine.has(SITE_OPTION)) {
+            runSite(commandLine);
+            return;
+        }
+        if (commandLine.has(SERVE_OPTION)) {
+            runServer(commandLine);
+            return;
+        }
+        if (commandLine.has(WATCH_OPTION)) {
+            runWatch(commandLine);
+            return;
+        }
+
+        FileConfig config = parseArguments(commandLine);
+        MetricsAggregator aggregator = new MetricsAggregator();
+
+        openOutputCache(commandLine);
+        try {
+            convertFile(config, commandLine.value(METRICS_OPTION, null) != null, aggregator);
+        } finally {
+            closeOutputCache();
+        }
+        writeMetricsSummary(commandLine, aggregator);
+
+        System.out.println("✓ HTML successfully generated: " + compression.outputFile(config.outputFile()));
+    }
+
+    /**
+     * Replaces the default converter when the output layout, the traversal, parallel rendering,
+     * memoization or limits were requested.
+     */
+    private void configureRendering(CommandLine commandLine) {
+        compression = Compression.fromOption(commandLine.value(COMPRESS_OPTION, "none"));
+        jsonBackend = JsonBackend.fromOption(commandLine.value(JSON_OPTION, "org"));
+        ConversionLimits limits = parseLimits(commandLine);
+        if (commandLine.has(MMAP_OPTION) && jsonBackend != JsonBackend.ORG_JSON
+                && !commandLine.has(STREAM_OPTION) && !commandLine.has(PIPELINE_OPTION)) {
+            // Warned once here rather than for every file readMappedJsonFile reads
+            Log.LOGGER.warning("The native parser reads input files as strings; " + MMAP_OPTION
+                    + " only maps the output with " + JSON_OPTION + "=native");
+        }
+
+        OutputFormat format = commandLine.has(MINIFY_OPTION) ? OutputFormat.MINIFIED : OutputFormat.PRETTY;
+        boolean memoize = commandLine.has(MEMOIZE_OPTION);
+        if (memoize && (commandLine.has(ITERATIVE_OPTION) || commandLine.has(PARALLEL_OPTION))) {
+            Log.LOGGER.warning("Memoization needs the sequential recursive walk; ignoring " + MEMOIZE_OPTION);
+        } else if (memoize && jsonBackend != JsonBackend.NATIVE) {
+            // Parsed org.json subtrees are never shared, so the memo could only match them by identity
+            Log.LOGGER.warning("Memoization recognizes repeats by their source text, which only "
+                    + JSON_OPTION + "=native keeps; ignoring " + MEMOIZE_OPTION);
+            memoize = false;
+        }
+        if (commandLine.has(ITERATIVE_OPTION)) {
+            if (commandLine.has(PARALLEL_OPTION)) {
+                Log.LOGGER.warning("Iterative traversal is sequential; ignoring " + PARALLEL_OPTION);
+            }
+            elementBuilder = new HtmlElementBuilder(format, HtmlElementBuilder.Traversal.ITERATIVE);
+        } else if (commandLine.has(PARALLEL_OPTION)) {
+            // Wide documents split their sibling lists across the common pool
+            elementBuilder = new HtmlElementBuilder(
+                    format, ForkJoinPool.commonPool(), HtmlElementBuilder.DEFAULT_PARALLEL_THRESHOLD);
+        } else if (memoize) {
+            // Repeated blocks render once per document, recognized by comparing their source
+            elementBuilder = new HtmlElementBuilder(format).withMemoization(
+                    HtmlElementBuilder.DEFAULT_MEMO_ENTRIES, HtmlElementBuilder.DEFAULT_MEMO_CHARS);
+        } else if (format != OutputFormat.PRETTY) {
+            elementBuilder = new HtmlElementBuilder(format);
+        } else if (!limits.isBounded()) {
+            return;
+        }
+        converter = new JsonHtmlConverter(elementBuilder, limits);
+        planCompiler = new RenderPlanCompiler(converter);
+    }
+
+    /**
+     * Opens the output cache when one was requested. The cache key covers the converter version
+     * and every option that changes the output bytes; traversal, parallelism, memory mapping and
+     * limits only change how the same output is produced, or whether it is produced at all.
+     */
+    private void openOutputCache(CommandLine commandLine) throws IOException {
+        String directory = commandLine.value(CACHE_OPTION, null);
+        if (directory == null) {
+            return;
+        }
+        // Limits decide whether an input converts at all, so outputs are only reused under the same limits
+        String configuration = String.join(" ", JsonHtmlConverter.VERSION,
+                elementBuilder.format().name(), compression.name(), jsonBackend.name(),
+                commandLine.has(STREAM_OPTION) ? "stream" : "tree", converter.limits().toString());
+        outputCache = OutputCache.open(Paths.get(directory),
+                commandLine.longValue(CACHE_MAX_BYTES_OPTION, OutputCache.DEFAULT_MAX_BYTES), configuration);
+    }
+
+    private void closeOutputCache() throws IOException {
+        if (outputCache == null) {
+            return;
+        }
+        OutputCache.Stats stats = outputCache.stats();
+        outputCache.close();
+        System.out.printf("Output cache: %d hits, %d misses (%.1f%% hit rate, %d untouched), ~%d ms saved,"
+                        + " %d entries in %d bytes%n",
+                stats.hits(), stats.misses(), stats.hitRate() * 100, stats.untouched(),
+                TimeUnit.NANOSECONDS.toMillis(stats.savedNanos()), outputCache.size(), outputCache.totalBytes());
+        outputCache = null;
+    }
+
+    /**
+     * Applies the --max-* options to no limits, or to the service defaults when serving,
+     * since a server shares one JVM between all of its clients.
+     */
+    private static ConversionLimits parseLimits(CommandLine commandLine) {
+        ConversionLimits limits = commandLine.has(SERVE_OPTION)
+                ? ConversionLimits.DEFAULT
+                : ConversionLimits.UNLIMITED;
+        return limits
+                .withMaxInputBytes(commandLine.longValue(MAX_INPUT_BYTES_OPTION, limits.maxInputBytes()))
+                .withMaxDepth(commandLine.intValue(MAX_DEPTH_OPTION, limits.maxDepth()))
+                .withMaxElements(commandLine.longValue(MAX_ELEMENTS_OPTION, limits.maxElements()))
+                .withMaxArrayLength(commandLine.intValue(MAX_ARRAY_LENGTH_OPTION, limits.maxArrayLength()))
+                .withMaxOutputBytes(commandLine.longValue(MAX_OUTPUT_BYTES_OPTION, limits.maxOutputBytes()));
+    }
+
+    /**
+     * Converts every input on a worker pool that shares this app's converter.
+     * Failed files are reported individually; the run fails at the end if any file failed.
+     */
+    private void runBatch(CommandLine commandLine) throws JsonHtmlConversionException, IOException {
+        List<String> positional = commandLine.positional();
+        if (positional.size() < 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        boolean streaming = commandLine.has(STREAM_OPTION);
+        boolean mapped = commandLine.has(MMAP_OPTION);
+        boolean collectMetrics = commandLine.value(METRICS_OPTION, null) != null;
+        MetricsAggregator aggregator = new MetricsAggregator();
+        int threads = commandLine.intValue(THREADS_OPTION, Runtime.getRuntime().availableProcessors());
+        BatchConverter.ExecutorType executorType =
+                BatchConverter.ExecutorType.fromOption(commandLine.value(EXECUTOR_OPTION, "fork-join"));
+
+        Path outputDirectory = Paths.get(positional.get(0));
+        List<BatchTask> tasks = new BatchInputResolver(outputDirectory)
+                .resolve(positional.subList(1, positional.size()));
+
+        BatchReport report;
+        if (commandLine.has(PIPELINE_OPTION) && streaming) {
+            Log.LOGGER.warning("Streaming interleaves reading, rendering and writing; ignoring " + PIPELINE_OPTION);
+        }
+        if (commandLine.has(PIPELINE_OPTION) && !streaming) {
+            if (mapped) {
+                Log.LOGGER.warning("The pipeline reads whole files in its read stage; ignoring " + MMAP_OPTION);
+            }
+            PipelinedBatchConverter.Concurrency concurrency = new PipelinedBatchConverter.Concurrency(
+                    commandLine.intValue(READ_THREADS_OPTION, 2),
+                    threads,
+                    commandLine.intValue(WRITE_THREADS_OPTION, 2),
+                    commandLine.intValue(QUEUE_CAPACITY_OPTION, threads * 2));
+            Log.LOGGER.info("Starting pipelined batch conversion of " + tasks.size() + " files with "
+                    + concurrency.readers() + " read, " + concurrency.renderers() + " render and "
+                    + concurrency.writers() + " write workers");
+
+            report = new PipelinedBatchConverter<>(new PipelineStages(collectMetrics, aggregator), concurrency)
+                    .convertAll(tasks);
+        } else {
+            Log.LOGGER.info("Starting batch conversion of " + tasks.size() + " files with " + threads + " "
+                    + executorType + " workers");
+
+            BatchConverter batchConverter = new BatchConverter(
+                    task -> convertFile(new FileConfig(task.inputFile(), task.outputFile(), streaming, mapped),
+                            collectMetrics, aggregator),
+                    executorType,
+                    threads
+            );
+            report = batchConverter.convertAll(tasks);
+        }
+
+        for (BatchResult result : report.results()) {
+            if (result.isSuccess()) {
+                System.out.println("✓ " + result.task().inputFile() + " -> "
+                        + compression.outputFile(result.task().outputFile()));
+            } else {
+                System.out.println("✗ " + result.task().inputFile() + ": " + describe(result.error()));
+            }
+        }
+        System.out.println("Converted " + report.successCount() + " of " + report.results().size()
+                + " files in " + TimeUnit.NANOSECONDS.toMillis(report.durationNanos()) + " ms");
+        writeMetricsSummary(commandLine, aggregator);
 
-        LOGGER.info("Starting JSON to HTML conversion");
-        LOGGER.info("Input file: " + config.inputFile());
-        LOGGER.info("Output file: " + config.outputFile());
+        if (report.hasFailures()) {
+            throw new JsonHtmlConversionException(report.failureCount() + " of " + report.results().size()
+                    + " files failed to convert");
+        }
+    }
 
+    /**
+     * Converts the input once, then keeps re-rendering the changed parts of it on every save
+     * until the JVM is stopped.
+     */
+    private void runWatch(CommandLine commandLine) throws JsonHtmlConversionException, IOException {
+        FileConfig config = parseArguments(commandLine);
         validateInputFile(config.inputFile());
+        createParentDirectories(config.outputFile());
+
+        DocumentWatcher watcher = new DocumentWatcher(
+                new IncrementalHtmlRenderer(elementBuilder), config.inputFile(), config.outputFile());
+        IncrementalHtmlRenderer.Update initial = watcher.update();
+        System.out.println("✓ HTML generated: " + config.outputFile() + " (" + initial.renderedFragments()
+                + " fragments); watching " + config.inputFile() + " for changes");
+
+        watcher.watch((update, durationNanos) -> System.out.println(update.changed()
+                ? "✓ Updated " + config.outputFile() + ": " + update.renderedFragments() + " re-rendered, "
+                        + update.reusedFragments() + " reused fragments in "
+                        + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms"
+                : "✓ No changes in " + config.inputFile()));
+    }
+
+    /**
+     * Serves conversions over HTTP with this app's converter until the JVM receives a shutdown
+     * signal. The server lives long enough to see repeated bodies, so only it keeps rendered pages.
+     */
+    private void runServer(CommandLine commandLine) throws IOException {
+        int port = commandLine.intValue(PORT_OPTION, DEFAULT_PORT);
+        int threads = commandLine.intValue(THREADS_OPTION, Runtime.getRuntime().availableProcessors() * 4);
+        BatchConverter.ExecutorType executorType =
+                BatchConverter.ExecutorType.fromOption(commandLine.value(EXECUTOR_OPTION, "virtual"));
+
+        int maxBodyBytes = (int) Math.min(MAX_REQUEST_BYTES, converter.limits().maxInputBytes());
+        RenderedPageCache pageCache = new RenderedPageCache(PAGE_CACHE_ENTRIES, PAGE_CACHE_BYTES);
+
+        ConversionServer server;
+        try {
+            server = new ConversionServer(converter, pageCache, new InetSocketAddress(port),
+                    executorType.newExecutor(threads), maxBodyBytes);
+        } catch (IllegalStateException e) {
+            // Virtual threads are the default but need Java 21+
+            Log.LOGGER.warning(e.getMessage() + "; falling back to a fork-join pool");
+            server = new ConversionServer(converter, pageCache, new InetSocketAddress(port),
+                    BatchConverter.ExecutorType.FORK_JOIN.newExecutor(threads), maxBodyBytes);
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        ConversionServer running = server;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            running.stop(1);
+            stopped.countDown();
+        }));
+
+        server.start();
+        System.out.println("✓ Listening on http://localhost:" + server.port() + " (POST /convert, /convert/stream)");
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Compiles one template and renders it once per JSON line record.
+     * Output files are named after the record's name field, or its line number.
+     */
+    private void runTemplate(CommandLine commandLine) throws JsonHtmlConversionException, IOException {
+        List<String> positional = commandLine.positional();
+        if (positional.size() != 3) {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        Path templateFile = Paths.get(positional.get(0));
+        Path recordsFile = Paths.get(positional.get(1));
+        Path outputDirectory = Paths.get(positional.get(2));
+        String nameField = commandLine.value(NAME_FIELD_OPTION, null);
+
+        validateInputFile(templateFile);
+        RenderPlan plan = planCompiler.compileTemplate(readJsonFile(templateFile, ConversionMetrics.NOOP));
+        Log.LOGGER.info("Compiled template " + templateFile + " with " + plan.slots().size() + " placeholders");
+
+        Files.createDirectories(outputDirectory);
+        RecordRenderer.Summary summary;
+        try (BufferedReader records = Files.newBufferedReader(recordsFile)) {
+            summary = new RecordRenderer().render(plan, records, (lineNumber, record) -> {
+                String name = nameField != null ? record.optString(nameField, null) : String.valueOf(lineNumber);
+                if (name == null || name.isBlank() || name.contains("/") || name.contains("\\") || name.contains("..")) {
+                    throw new IllegalArgumentException("Invalid output name for record: " + name);
+                }
+                return new BufferedOutputStream(Files.newOutputStream(outputDirectory.resolve(name + ".html")));
+            });
+        }
 
-        JSONObject jsonData = readJsonFile(config.inputFile());
-        String htmlOutput = convertToHtml(jsonData);
-        writeHtmlFile(config.outputFile(), htmlOutput);
+        for (RecordRenderer.RecordFailure failure : summary.failures()) {
+            System.out.println("✗ " + recordsFile + ":" + failure.lineNumber() + ": " + failure.message());
+        }
+        System.out.println("✓ Rendered " + summary.renderedCount() + " pages into " + outputDirectory);
 
-        System.out.println("✓ HTML successfully generated: " + config.outputFile());
-        LOGGER.info("Conversion completed successfully");
+        if (!summary.failures().isEmpty()) {
+            throw new JsonHtmlConversionException(summary.failures().size() + " records failed to render");
+        }
     }
 
-    private FileConfig parseArguments(String[] args) {
+    /**
+     * Renders the shared head of a site document once and every page body against it.
+     * Output files are named after the page keys.
+     */
+    private void runSite(CommandLine commandLine) throws JsonHtmlConversionException, IOException {
+        List<String> positional = commandLine.positional();
+        if (positional.size() != 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        Path siteFile = Paths.get(positional.get(0));
+        Path outputDirectory = Paths.get(positional.get(1));
+        int threads = commandLine.intValue(THREADS_OPTION, Runtime.getRuntime().availableProcessors());
+
+        validateInputFile(siteFile);
+        JsonNode site = readJsonFile(siteFile, ConversionMetrics.NOOP);
+
+        Files.createDirectories(outputDirectory);
+        SiteRenderer.Summary summary = new SiteRenderer(converter, threads).render(site, name -> {
+            if (name.isBlank() || name.contains("/") || name.contains("\\") || name.contains("..")) {
+                throw new IllegalArgumentException("Invalid output name for page: " + name);
+            }
+            return openOutputStream(compression.outputFile(outputDirectory.resolve(name + ".html")), false);
+        });
+
+        for (SiteRenderer.PageFailure failure : summary.failures()) {
+            System.out.println("✗ " + siteFile + ": page '" + failure.name() + "': " + failure.message());
+        }
+        System.out.println("✓ Rendered " + summary.renderedCount() + " pages into " + outputDirectory + " in "
+                + TimeUnit.NANOSECONDS.toMillis(summary.durationNanos()) + " ms");
+
+        if (!summary.failures().isEmpty()) {
+            throw new JsonHtmlConversionException(summary.failures().size() + " pages failed to render");
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable rootCause = error;
+        while (rootCause.getCause() != null) {
+            rootCause = rootCause.getCause();
+        }
+
+        String message = String.valueOf(error.getMessage());
+        if (rootCause != error && rootCause.getMessage() != null && !message.contains(rootCause.getMessage())) {
+            message += ": " + rootCause.getMessage();
+        }
+        return message;
+    }
+
+    /**
+     * Writes the aggregated metrics as JSON if a summary file was requested.
+     */
+    private static void writeMetricsSummary(CommandLine commandLine, MetricsAggregator aggregator) throws IOException {
+        String summaryFile = commandLine.value(METRICS_OPTION, null);
+        if (summaryFile == null) {
+            return;
+        }
+        Files.writeString(Paths.get(summaryFile), aggregator.toJson().toString(2), StandardCharsets.UTF_8);
+        System.out.println("✓ Metrics for " + aggregator.documentCount() + " documents written to " + summaryFile);
+    }
+
+    /**
+     * Converts one file. Measurements are taken when a summary was requested or when
+     * a flight recording listens for conversion events; otherwise no clock is read.
+     */
+    private void convertFile(FileConfig config, boolean collectMetrics, MetricsAggregator aggregator)
+            throws JsonHtmlConversionException, IOException {
+        if (!collectMetrics && !DocumentMetrics.isJfrEventEnabled()) {
+            convertFile(config, ConversionMetrics.NOOP);
+            return;
+        }
+
+        DocumentMetrics metrics = new DocumentMetrics(config.inputFile().toString());
+        convertFile(config, metrics);
+        metrics.emitJfrEvent();
+        aggregator.add(metrics);
+    }
+
+    private void convertFile(FileConfig config, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
+        validateInputFile(config.inputFile());
+        Path outputFile = compression.outputFile(config.outputFile());
+
+        if (outputCache == null) {
+            renderFile(config, outputFile, metrics);
+        } else {
+            // Inputs converted before with the same options are served from the cache
+            OutputCache.Key key = outputCache.key(config.inputFile());
+            if (!outputCache.restore(key, outputFile)) {
+                long start = System.nanoTime();
+                // The old output may be linked to a cached file, which must not be overwritten
+                Files.deleteIfExists(outputFile);
+                renderFile(config, outputFile, metrics);
+                outputCache.store(key, outputFile, System.nanoTime() - start);
+            }
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordInputBytes(Files.size(config.inputFile()));
+            metrics.recordOutputBytes(Files.size(outputFile));
+        }
+    }
+
+    private void renderFile(FileConfig config, Path outputFile, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
+        if (config.streaming()) {
+            streamToHtml(config.inputFile(), outputFile, config.mapped(), metrics);
+        } else {
+            JsonNode jsonData = config.mapped()
+                    ? readMappedJsonFile(config.inputFile(), metrics)
+                    : readJsonFile(config.inputFile(), metrics);
+            writeHtmlFile(outputFile, jsonData, config.mapped(), metrics);
+        }
+    }
+
+    private FileConfig parseArguments(CommandLine commandLine) {
+        boolean streaming = commandLine.has(STREAM_OPTION);
+        boolean mapped = commandLine.has(MMAP_OPTION);
+        List<String> paths = commandLine.positional();
+
         final Path outputFile = Paths.get(DEFAULT_OUTPUT_FILE);
-        return switch (args.length) {
+        return switch (paths.size()) {
             case 0 -> new FileConfig(
                     Paths.get(DEFAULT_INPUT_FILE),
-                    outputFile
+                    outputFile,
+                    streaming,
+                    mapped
             );
             case 1 -> new FileConfig(
-                    Paths.get(args[0]),
-                    outputFile
+                    Paths.get(paths.get(0)),
+                    outputFile,
+                    streaming,
+                    mapped
             );
             case 2 -> new FileConfig(
-                    Paths.get(args[0]),
-                    Paths.get(args[1])
-            );
-            default -> throw new IllegalArgumentException(
-                    "Usage: java main.java.com.marko.flawlessJsonHtml.Main [input.json] [output.html]"
+                    Paths.get(paths.get(0)),
+                    Paths.get(paths.get(1)),
+                    streaming,
+                    mapped
             );
+            default -> throw new IllegalArgumentException(USAGE);
         };
     }
 
@@ -85,19 +637,80 @@ public  class JsonHtmlConverterApp {
 
         String fileName = inputFile.getFileName().toString().toLowerCase();
         if (!fileName.endsWith(".json")) {
-            LOGGER.warning("Input file does not have .json extension: " + inputFile);
+            Log.LOGGER.warning("Input file does not have .json extension: " + inputFile);
         }
     }
 
-    private JSONObject readJsonFile(Path inputFile) throws IOException, JsonHtmlConversionException {
+    private JsonNode readJsonFile(Path inputFile, ConversionMetrics metrics)
+            throws IOException, JsonHtmlConversionException {
+        return parseJson(inputFile, readJsonText(inputFile, metrics), metrics);
+    }
+
+    private String readJsonText(Path inputFile, ConversionMetrics metrics)
+            throws IOException, JsonHtmlConversionException {
         try {
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            converter.limits().checkInputSize(Files.size(inputFile));
             String content = Files.readString(inputFile);
             if (content.trim().isEmpty()) {
                 throw new JsonHtmlConversionException("JSON file is empty or contains only whitespace");
             }
 
-            return new JSONObject(content);
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.READ, System.nanoTime() - start);
+            }
+            return content;
+
+        } catch (IOException e) {
+            throw new IOException("Failed to read input file: " + inputFile, e);
+        }
+    }
+
+    /**
+     * Parses JSON text with the selected backend, within the converter's limits.
+     */
+    private JsonNode parseJson(Path inputFile, String content, ConversionMetrics metrics)
+            throws JsonHtmlConversionException {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            JsonNode json = jsonBackend.parse(content, converter.limits());
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.PARSE, System.nanoTime() - start);
+            }
+            return json;
+        } catch (LimitExceededException e) {
+            throw e;
+        } catch (JsonHtmlConversionException e) {
+            throw new JsonHtmlConversionException(
+                    "Invalid JSON format in file: " + inputFile + ". " + e.getMessage(), e
+            );
+        }
+    }
 
+    /**
+     * Parses the file straight from its memory mapping without creating a String of its content.
+     * Reading and parsing are interleaved, so their combined time is recorded as the parse stage.
+     * The native backend parses from text, so it reads the file as usual; configureRendering
+     * warns about that once.
+     */
+    private JsonNode readMappedJsonFile(Path inputFile, ConversionMetrics metrics)
+            throws IOException, JsonHtmlConversionException {
+        if (jsonBackend != JsonBackend.ORG_JSON) {
+            return readJsonFile(inputFile, metrics);
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        converter.limits().checkInputSize(Files.size(inputFile));
+        if (converter.limits().isBounded()) {
+            try (Reader scan = new MappedUtf8Reader(inputFile)) {
+                converter.checkInput(scan);
+            }
+        }
+        try (Reader reader = new MappedUtf8Reader(inputFile)) {
+            JSONObject json = new JSONObject(new JSONTokener(reader));
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.PARSE, System.nanoTime() - start);
+            }
+            return OrgJsonNode.of(json);
         } catch (JSONException e) {
             throw new JsonHtmlConversionException(
                     "Invalid JSON format in file: " + inputFile + ". " + e.getMessage(), e
@@ -107,27 +720,213 @@ public  class JsonHtmlConverterApp {
         }
     }
 
-    private String convertToHtml(JSONObject jsonData) throws JsonHtmlConversionException {
+    private OutputBufferPool.Buffer convertToBuffer(JsonNode jsonData, ConversionMetrics metrics)
+            throws JsonHtmlConversionException {
         try {
-            return converter.convert(jsonData);
+            return converter.convertToBuffer(jsonData, metrics);
+        } catch (JsonHtmlConversionException e) {
+            // Keeps specific failures such as exceeded limits recognizable
+            throw e;
         } catch (Exception e) {
             throw new JsonHtmlConversionException("Failed to convert JSON to HTML", e);
         }
     }
 
-    private void writeHtmlFile(Path outputFile, String htmlContent) throws IOException {
+    private void streamToHtml(Path inputFile, Path outputFile, boolean mapped, ConversionMetrics metrics)
+            throws IOException, JsonHtmlConversionException {
+        converter.limits().checkInputSize(Files.size(inputFile));
         try {
-            // Create parent directories if they don't exist
-            Path parentDir = outputFile.getParent();
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
-            }
+            writeReplacing(outputFile, temporary -> {
+                try (Reader reader = mapped ? new MappedUtf8Reader(inputFile) : Files.newBufferedReader(inputFile);
+                     Writer writer = openOutputWriter(temporary, mapped)) {
+                    converter.convert(reader, writer, metrics);
+                }
+            });
+        } catch (IOException e) {
+            throw new IOException("Failed to stream " + inputFile + " to " + outputFile, e);
+        }
+    }
 
-            Files.writeString(outputFile, htmlContent);
+    /**
+     * Renders a document straight into the output file, without an intermediate HTML string.
+     */
+    private void writeHtmlFile(Path outputFile, JsonNode jsonData, boolean mapped, ConversionMetrics metrics)
+            throws IOException, JsonHtmlConversionException {
+        try {
+            writeReplacing(outputFile, temporary -> {
+                try (Writer writer = openOutputWriter(temporary, mapped)) {
+                    converter.convert(jsonData, writer, metrics);
+                }
+            });
+        } catch (IOException e) {
+            throw new IOException("Failed to write output file: " + outputFile, e);
+        } catch (JsonHtmlConversionException e) {
+            // Keeps specific failures such as exceeded limits recognizable
+            throw e;
+        } catch (Exception e) {
+            throw new JsonHtmlConversionException("Failed to convert JSON to HTML", e);
+        }
+    }
 
+    /**
+     * Writes into a temporary file next to the output and moves it into place once the whole
+     * document is written, so a conversion that fails part way leaves no truncated output behind.
+     */
+    private <E extends Exception> void writeReplacing(Path outputFile, AtomicFiles.Write<E> write)
+            throws IOException, E {
+        createParentDirectories(outputFile);
+        AtomicFiles.replace(outputFile, write);
+    }
+
+    private void createParentDirectories(Path outputFile) throws IOException {
+        Path parentDir = outputFile.getParent();
+        if (parentDir != null && !Files.exists(parentDir)) {
+            Files.createDirectories(parentDir);
+        }
+    }
+
+    /**
+     * Opens the output for characters. Uncompressed output is encoded straight into the file;
+     * compressed output is encoded into the compressor.
+     */
+    private Writer openOutputWriter(Path outputFile, boolean mapped) throws IOException {
+        if (compression == Compression.NONE) {
+            return mapped
+                    ? new ChannelWriter(openOutputChannel(outputFile), bufferPool)
+                    : Files.newBufferedWriter(outputFile);
+        }
+        return new BufferedWriter(new OutputStreamWriter(openOutputStream(outputFile, mapped), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens the output for bytes, compressing them on the way if requested.
+     */
+    private OutputStream openOutputStream(Path outputFile, boolean mapped) throws IOException {
+        OutputStream out = mapped
+                ? new ChannelOutputStream(openOutputChannel(outputFile), bufferPool)
+                : new BufferedOutputStream(Files.newOutputStream(outputFile));
+        try {
+            return compression.wrap(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private static FileChannel openOutputChannel(Path outputFile) throws IOException {
+        return FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes a page rendered by {@link #convertToBuffer} and returns the buffer to the pool.
+     */
+    private void writeHtmlFile(Path outputFile, OutputBufferPool.Buffer html, ConversionMetrics metrics)
+            throws IOException {
+        try {
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            writeReplacing(outputFile, temporary -> {
+                try (Writer writer = openOutputWriter(temporary, false)) {
+                    html.writeTo(writer);
+                }
+            });
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.WRITE, System.nanoTime() - start);
+            }
         } catch (IOException e) {
             throw new IOException("Failed to write output file: " + outputFile, e);
+        } finally {
+            converter.releaseBuffer(html);
         }
     }
-}
 
+    /**
+     * A batch file on its way through the pipeline.
+     */
+    private final class PipelinedFile {
+        private final Path outputFile;
+        private final DocumentMetrics documentMetrics;
+        private OutputCache.Key cacheKey;
+        private long workNanos;
+        private String content;
+        private OutputBufferPool.Buffer html;
+
+        PipelinedFile(BatchTask task, DocumentMetrics documentMetrics) {
+            this.outputFile = compression.outputFile(task.outputFile());
+            this.documentMetrics = documentMetrics;
+        }
+
+        ConversionMetrics metrics() {
+            return documentMetrics != null ? documentMetrics : ConversionMetrics.NOOP;
+        }
+    }
+
+    /**
+     * Tree conversion split into pipeline stages: cache lookup and reading, then parsing and
+     * rendering into a pooled buffer, then writing and caching the output.
+     */
+    private final class PipelineStages implements PipelinedBatchConverter.Stages<PipelinedFile, PipelinedFile> {
+        private final boolean collectMetrics;
+        private final MetricsAggregator aggregator;
+
+        PipelineStages(boolean collectMetrics, MetricsAggregator aggregator) {
+            this.collectMetrics = collectMetrics;
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        public PipelinedFile read(BatchTask task) throws JsonHtmlConversionException, IOException {
+            validateInputFile(task.inputFile());
+            PipelinedFile file = new PipelinedFile(task, collectMetrics || DocumentMetrics.isJfrEventEnabled()
+                    ? new DocumentMetrics(task.inputFile().toString())
+                    : null);
+            if (outputCache != null) {
+                file.cacheKey = outputCache.key(task.inputFile());
+                if (outputCache.restore(file.cacheKey, file.outputFile)) {
+                    finish(task, file);
+                    return null;
+                }
+            }
+
+            long start = System.nanoTime();
+            file.content = readJsonText(task.inputFile(), file.metrics());
+            file.workNanos += System.nanoTime() - start;
+            return file;
+        }
+
+        @Override
+        public PipelinedFile render(BatchTask task, PipelinedFile file) throws JsonHtmlConversionException {
+            long start = System.nanoTime();
+            file.html = convertToBuffer(parseJson(task.inputFile(), file.content, file.metrics()), file.metrics());
+            // The text is not needed any more; dropping it keeps queued files small
+            file.content = null;
+            file.workNanos += System.nanoTime() - start;
+            return file;
+        }
+
+        @Override
+        public void write(BatchTask task, PipelinedFile file) throws IOException {
+            long start = System.nanoTime();
+            if (outputCache != null) {
+                // The old output may be linked to a cached file, which must not be overwritten
+                Files.deleteIfExists(file.outputFile);
+            }
+            writeHtmlFile(file.outputFile, file.html, file.metrics());
+            file.html = null;
+            if (outputCache != null) {
+                outputCache.store(file.cacheKey, file.outputFile, file.workNanos + System.nanoTime() - start);
+            }
+            finish(task, file);
+        }
+
+        private void finish(BatchTask task, PipelinedFile file) throws IOException {
+            if (file.documentMetrics == null) {
+                return;
+            }
+            file.documentMetrics.recordInputBytes(Files.size(task.inputFile()));
+            file.documentMetrics.recordOutputBytes(Files.size(file.outputFile));
+            file.documentMetrics.emitJfrEvent();
+            aggregator.add(file.documentMetrics);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.marko.flawlessJsonHtml.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Converts many files concurrently on a worker pool.
+ * <p>
+ * A failing file is recorded in its {@link BatchResult} and does not stop the
+ * remaining conversions. The conversion itself is supplied by the caller so a single
+ * converter instance can be shared by all workers.
+ */
+public class BatchConverter {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchConverter.class.getName());
+
+    /**
+     * Converts a single task's input file into its output file.
+     */
+    @FunctionalInterface
+    public interface FileConversion {
+        void convert(BatchTask task) throws Exception;
+    }
+
+    /**
+     * Kind of worker pool used for the batch.
+     */
+    public enum ExecutorType {
+        /** Fork-join pool with one worker per unit of parallelism. */
+        FORK_JOIN,
+        /** One virtual thread per file, throttled to the configured parallelism. Requires Java 21+. */
+        VIRTUAL;
+
+        public static ExecutorType fromOption(String value) {
+            return switch (value.toLowerCase()) {
+                case "fork-join", "forkjoin" -> FORK_JOIN;
+                case "virtual" -> VIRTUAL;
+                default -> throw new IllegalArgumentException("Unknown executor type: " + value);
+            };
+        }
+
+        /**
+         * Creates a new executor of this type. Virtual thread executors are unbounded;
+         * callers throttle them themselves.
+         *
+         * @throws IllegalStateException if virtual threads are requested on a runtime without them
+         */
+        public ExecutorService newExecutor(int parallelism) {
+            if (this == FORK_JOIN) {
+                return new ForkJoinPool(parallelism);
+            }
+
+            try {
+                // Looked up reflectively so the project still targets Java 17
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+            }
+        }
+    }
+
+    private final FileConversion conversion;
+    private final ExecutorType executorType;
+    private final int parallelism;
+
+    public BatchConverter(FileConversion conversion, ExecutorType executorType, int parallelism) {
+        if (conversion == null) {
+            throw new IllegalArgumentException("Conversion cannot be null");
+        }
+        if (executorType == null) {
+            throw new IllegalArgumentException("Executor type cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.conversion = conversion;
+        this.executorType = executorType;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Converts all tasks and waits for them to finish.
+     *
+     * @param tasks files to convert
+     * @return per-file results in task order
+     */
+    public BatchReport convertAll(List<BatchTask> tasks) {
+        long start = System.nanoTime();
+        ExecutorService executor = executorType.newExecutor(parallelism);
+        Semaphore permits = new Semaphore(parallelism);
+
+        try {
+            List<CompletableFuture<BatchResult>> futures = new ArrayList<>(tasks.size());
+            for (BatchTask task : tasks) {
+                futures.add(CompletableFuture.supplyAsync(() -> convertOne(task, permits), executor));
+            }
+
+            List<BatchResult> results = new ArrayList<>(tasks.size());
+            for (CompletableFuture<BatchResult> future : futures) {
+                results.add(future.join());
+            }
+            return new BatchReport(results, System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BatchResult convertOne(BatchTask task, Semaphore permits) {
+        long start = System.nanoTime();
+        try {
+            permits.acquire();
+            try {
+                conversion.convert(task);
+            } finally {
+                permits.release();
+            }
+            return new BatchResult(task, null, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BatchResult(task, e, System.nanoTime() - start);
+        } catch (Exception | StackOverflowError e) {
+            LOGGER.log(Level.FINE, "Conversion failed for " + task.inputFile(), e);
+            return new BatchResult(task, e, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.marko.flawlessJsonHtml.batch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Expands batch inputs into {@link BatchTask}s.
+ * <p>
+ * Each input can be:
+ * <ul>
+ *   <li>a directory, searched recursively for {@code *.json} files,</li>
+ *   <li>a glob such as {@code pages/**}{@code /*.json},</li>
+ *   <li>a manifest written as {@code @pages.txt}, listing one input per line
+ *   ({@code #} starts a comment, relative paths resolve against the manifest),</li>
+ *   <li>a plain file.</li>
+ * </ul>
+ * Files found under a directory or glob keep their relative path below the output directory;
+ * other files are written directly into it. The extension is replaced with {@code .html}.
+ */
+public final class BatchInputResolver {
+
+    private static final String MANIFEST_PREFIX = "@";
+    private static final String JSON_EXTENSION = ".json";
+    private static final String HTML_EXTENSION = ".html";
+
+    private final Path outputDirectory;
+
+    public BatchInputResolver(Path outputDirectory) {
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("Output directory cannot be null");
+        }
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Resolves all inputs into tasks.
+     *
+     * @param inputs directories, globs, manifests or files
+     * @return tasks in discovery order
+     * @throws IOException if a directory or manifest cannot be read
+     * @throws IllegalArgumentException if two inputs map to the same output file
+     */
+    public List<BatchTask> resolve(List<String> inputs) throws IOException {
+        List<BatchTask> tasks = new ArrayList<>();
+        for (String input : inputs) {
+            resolveInput(input, tasks);
+        }
+        checkDuplicateOutputs(tasks);
+        return tasks;
+    }
+
+    private void resolveInput(String input, List<BatchTask> tasks) throws IOException {
+        if (input.startsWith(MANIFEST_PREFIX)) {
+            resolveManifest(Paths.get(input.substring(MANIFEST_PREFIX.length())), tasks);
+        } else if (isGlob(input)) {
+            resolveGlob(input, tasks);
+        } else {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                resolveDirectory(path, tasks);
+            } else {
+                tasks.add(new BatchTask(path, outputFor(path.getFileName())));
+            }
+        }
+    }
+
+    private void resolveManifest(Path manifest, List<BatchTask> tasks) throws IOException {
+        Path baseDir = manifest.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(manifest)) {
+            String entry = line.strip();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            resolveInput(baseDir.resolve(entry).toString(), tasks);
+        }
+    }
+
+    private void resolveDirectory(Path directory, List<BatchTask> tasks) throws IOException {
+        PathMatcher jsonFiles = path -> path.getFileName().toString().toLowerCase().endsWith(JSON_EXTENSION);
+        walk(directory, jsonFiles, tasks);
+    }
+
+    private void resolveGlob(String pattern, List<BatchTask> tasks) throws IOException {
+        // The directory part before the first wildcard is walked, the rest is matched
+        String normalized = pattern.replace('\\', '/');
+        int wildcard = firstWildcard(normalized);
+        int lastSeparator = normalized.lastIndexOf('/', wildcard);
+
+        Path baseDir = lastSeparator < 0 ? Paths.get("") : Paths.get(normalized.substring(0, lastSeparator + 1));
+        String relativePattern = normalized.substring(lastSeparator + 1);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + relativePattern);
+
+        walk(baseDir, matcher, tasks);
+    }
+
+    private void walk(Path baseDir, PathMatcher matcher, List<BatchTask> tasks) throws IOException {
+        Path root = baseDir.toString().isEmpty() ? Paths.get(".") : baseDir;
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .map(root::relativize)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .forEach(relative -> tasks.add(new BatchTask(baseDir.resolve(relative), outputFor(relative))));
+        }
+    }
+
+    private Path outputFor(Path relativeInput) {
+        String fileName = relativeInput.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String htmlName = (dot > 0 ? fileName.substring(0, dot) : fileName) + HTML_EXTENSION;
+        return outputDirectory.resolve(relativeInput).resolveSibling(htmlName);
+    }
+
+    private static boolean isGlob(String input) {
+        return firstWildcard(input) < input.length();
+    }
+
+    private static int firstWildcard(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return input.length();
+    }
+
+    private static void checkDuplicateOutputs(List<BatchTask> tasks) {
+        Map<Path, Path> seen = new HashMap<>();
+        for (BatchTask task : tasks) {
+            Path output = task.outputFile().toAbsolutePath().normalize();
+            Path previous = seen.putIfAbsent(output, task.inputFile());
+            if (previous != null) {
+                throw new IllegalArgumentException("Inputs " + previous + " and " + task.inputFile()
+                        + " both map to output " + task.outputFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.marko.flawlessJsonHtml.batch;
+
+import java.util.List;
+
+/**
+ * Results of a batch run, in the same order as the submitted tasks.
+ */
+public record BatchReport(List<BatchResult> results, long durationNanos) {
+
+    public BatchReport {
+        results = List.copyOf(results);
+    }
+
+    public long successCount() {
+        return results.stream().filter(BatchResult::isSuccess).count();
+    }
+
+    public long failureCount() {
+        return results.size() - successCount();
+    }
+
+    public boolean hasFailures() {
+        return failureCount() > 0;
+    }
+}
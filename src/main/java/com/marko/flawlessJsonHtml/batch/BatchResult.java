@@ -0,0 +1,15 @@
+package com.marko.flawlessJsonHtml.batch;
+
+/**
+ * Outcome of converting one {@link BatchTask}.
+ *
+ * @param task the converted task
+ * @param error failure cause, or null on success
+ * @param durationNanos wall time spent on the task
+ */
+public record BatchResult(BatchTask task, Throwable error, long durationNanos) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.marko.flawlessJsonHtml.batch;
+
+import java.nio.file.Path;
+
+/**
+ * A single input file and the output file it converts to.
+ */
+public record BatchTask(Path inputFile, Path outputFile) {
+    public BatchTask {
+        if (inputFile == null) {
+            throw new IllegalArgumentException("Input file path cannot be null");
+        }
+        if (outputFile == null) {
+            throw new IllegalArgumentException("Output file path cannot be null");
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.marko.flawlessJsonHtml.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Converts many files through separate read, render and write stages.
+ * <p>
+ * Each stage has its own threads, and bounded queues connect the stages. While one file is being
+ * rendered, the next ones are already being read and the previous ones written, so disks and cores
+ * stay busy at the same time. When a downstream stage falls behind, its full queue blocks the stage
+ * before it, which keeps the number of documents held in memory at the queue capacities plus one
+ * per worker.
+ * <p>
+ * As with {@link BatchConverter}, a failing file is recorded in its {@link BatchResult} and does
+ * not stop the others.
+ *
+ * @param <I> what the read stage hands to the render stage
+ * @param <O> what the render stage hands to the write stage
+ */
+public class PipelinedBatchConverter<I, O> {
+
+    private static final Logger LOGGER = Logger.getLogger(PipelinedBatchConverter.class.getName());
+
+    /**
+     * The work done for each task, one method per stage. Read and write should do the I/O,
+     * render the CPU work.
+     */
+    public interface Stages<I, O> {
+
+        /**
+         * @return input for the render stage, or null when the task needs no further work
+         */
+        I read(BatchTask task) throws Exception;
+
+        O render(BatchTask task, I input) throws Exception;
+
+        void write(BatchTask task, O output) throws Exception;
+    }
+
+    /**
+     * Threads per stage and the capacity of each queue between stages.
+     */
+    public record Concurrency(int readers, int renderers, int writers, int queueCapacity) {
+
+        public Concurrency {
+            if (readers < 1 || renderers < 1 || writers < 1) {
+                throw new IllegalArgumentException("Every stage needs at least one thread");
+            }
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be at least 1");
+            }
+        }
+
+        /**
+         * One render thread per core, two I/O threads per side and queues holding two documents
+         * per render thread.
+         */
+        public static Concurrency defaults() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return new Concurrency(2, cores, 2, cores * 2);
+        }
+    }
+
+    private final Stages<I, O> stages;
+    private final Concurrency concurrency;
+
+    public PipelinedBatchConverter(Stages<I, O> stages, Concurrency concurrency) {
+        if (stages == null) {
+            throw new IllegalArgumentException("Stages cannot be null");
+        }
+        if (concurrency == null) {
+            throw new IllegalArgumentException("Concurrency cannot be null");
+        }
+        this.stages = stages;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Converts all tasks and waits for them to finish.
+     *
+     * @param tasks files to convert
+     * @return per-file results in task order
+     */
+    public BatchReport convertAll(List<BatchTask> tasks) {
+        return new Run(tasks).execute();
+    }
+
+    /**
+     * A task moving through the stages together with what the previous stage produced.
+     */
+    private static final class Item {
+        private final int index;
+        private final long start;
+        private Object value;
+
+        Item(int index, long start) {
+            this.index = index;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Marks the end of a queue; each consumer takes one.
+     */
+    private static final Item END = new Item(-1, 0);
+
+    /**
+     * State of a single {@link #convertAll} call.
+     */
+    private final class Run {
+        private final List<BatchTask> tasks;
+        private final BatchResult[] results;
+        private final AtomicInteger nextTask = new AtomicInteger();
+        private final BlockingQueue<Item> rendering = new ArrayBlockingQueue<>(concurrency.queueCapacity());
+        private final BlockingQueue<Item> writing = new ArrayBlockingQueue<>(concurrency.queueCapacity());
+        private final AtomicInteger activeReaders = new AtomicInteger(concurrency.readers());
+        private final AtomicInteger activeRenderers = new AtomicInteger(concurrency.renderers());
+        private final AtomicLong readNanos = new AtomicLong();
+        private final AtomicLong renderNanos = new AtomicLong();
+        private final AtomicLong writeNanos = new AtomicLong();
+
+        Run(List<BatchTask> tasks) {
+            this.tasks = tasks;
+            this.results = new BatchResult[tasks.size()];
+        }
+
+        BatchReport execute() {
+            long start = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    concurrency.readers() + concurrency.renderers() + concurrency.writers());
+            try {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int i = 0; i < concurrency.readers(); i++) {
+                    workers.add(executor.submit(this::read));
+                }
+                for (int i = 0; i < concurrency.renderers(); i++) {
+                    workers.add(executor.submit(this::render));
+                }
+                for (int i = 0; i < concurrency.writers(); i++) {
+                    workers.add(executor.submit(this::write));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new IllegalStateException("Interrupted while waiting for the batch", e);
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                throw new IllegalStateException("Pipeline worker failed", e.getCause());
+            } finally {
+                executor.shutdown();
+            }
+
+            LOGGER.fine("Pipeline busy time: read " + TimeUnit.NANOSECONDS.toMillis(readNanos.get())
+                    + " ms, render " + TimeUnit.NANOSECONDS.toMillis(renderNanos.get())
+                    + " ms, write " + TimeUnit.NANOSECONDS.toMillis(writeNanos.get()) + " ms");
+            return new BatchReport(List.of(results), System.nanoTime() - start);
+        }
+
+        private void read() {
+            try {
+                int index;
+                while ((index = nextTask.getAndIncrement()) < tasks.size()) {
+                    Item item = new Item(index, System.nanoTime());
+                    BatchTask task = tasks.get(index);
+                    try {
+                        item.value = stages.read(task);
+                    } catch (Exception | StackOverflowError e) {
+                        fail(item, e);
+                        continue;
+                    } finally {
+                        readNanos.addAndGet(System.nanoTime() - item.start);
+                    }
+                    if (item.value == null) {
+                        succeed(item);
+                    } else {
+                        rendering.put(item);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The last reader tells every renderer that no more input is coming
+                if (activeReaders.decrementAndGet() == 0) {
+                    end(rendering, concurrency.renderers());
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void render() {
+            try {
+                Item item;
+                while ((item = rendering.take()) != END) {
+                    long start = System.nanoTime();
+                    try {
+                        item.value = stages.render(tasks.get(item.index), (I) item.value);
+                    } catch (Exception | StackOverflowError e) {
+                        fail(item, e);
+                        continue;
+                    } finally {
+                        renderNanos.addAndGet(System.nanoTime() - start);
+                    }
+                    writing.put(item);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (activeRenderers.decrementAndGet() == 0) {
+                    end(writing, concurrency.writers());
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void write() {
+            try {
+                Item item;
+                while ((item = writing.take()) != END) {
+                    long start = System.nanoTime();
+                    try {
+                        stages.write(tasks.get(item.index), (O) item.value);
+                        succeed(item);
+                    } catch (Exception | StackOverflowError e) {
+                        fail(item, e);
+                    } finally {
+                        writeNanos.addAndGet(System.nanoTime() - start);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void succeed(Item item) {
+            results[item.index] = new BatchResult(tasks.get(item.index), null, System.nanoTime() - item.start);
+        }
+
+        private void fail(Item item, Throwable error) {
+            BatchTask task = tasks.get(item.index);
+            LOGGER.log(Level.FINE, "Conversion failed for " + task.inputFile(), error);
+            results[item.index] = new BatchResult(task, error, System.nanoTime() - item.start);
+        }
+
+        private void end(BlockingQueue<Item> queue, int consumers) {
+            try {
+                for (int i = 0; i < consumers; i++) {
+                    queue.put(END);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
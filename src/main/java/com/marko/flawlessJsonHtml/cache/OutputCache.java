@@ -0,0 +1,379 @@
+package com.marko.flawlessJsonHtml.cache;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, content-addressed cache of generated output files.
+ * <p>
+ * An output is keyed by a SHA-256 hash of the converter version, the options that shape the
+ * output and the input bytes, so any change to one of them misses. Cached outputs are kept as
+ * files under {@code objects/} in the cache directory, together with an index ({@code index.jsonl})
+ * that records each output's size, checksum, last known output path and the time its conversion
+ * took. On a hit the output is left untouched when it still is the cached file, and otherwise
+ * hard-linked (or copied, across file systems) from the cache, so nothing is parsed or rendered.
+ * <p>
+ * Cached files are linked to outputs, so an output edited in place also changes its cache entry.
+ * Entries are therefore checked against their recorded size and modification time, and a file
+ * that no longer matches is re-hashed and dropped if its checksum changed.
+ * <p>
+ * The cache is bounded by the total size of the cached files; the least recently used entries are
+ * evicted first. Thread-safe; the index is written back by {@link #close()}.
+ */
+public final class OutputCache implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(OutputCache.class.getName());
+    private static final String INDEX_FILE = "index.jsonl";
+    private static final String OBJECTS_DIRECTORY = "objects";
+
+    /**
+     * Default bound on the size of the cached files.
+     */
+    public static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+    /**
+     * Identifies one output: the hex hash of version, configuration and input.
+     */
+    public record Key(String hash) {
+    }
+
+    /**
+     * Counters of one run.
+     *
+     * @param hits outputs served from the cache
+     * @param misses outputs that had to be converted
+     * @param untouched hits whose output already was the cached file
+     * @param savedNanos recorded conversion time of the hits, less the time spent serving them
+     */
+    public record Stats(long hits, long misses, long untouched, long savedNanos) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private static final class Entry {
+        final long size;
+        final String checksum;
+        final long convertNanos;
+        long modifiedMillis;
+        String outputPath;
+        long outputModifiedMillis;
+
+        Entry(long size, String checksum, long convertNanos, long modifiedMillis, String outputPath,
+              long outputModifiedMillis) {
+            this.size = size;
+            this.checksum = checksum;
+            this.convertNanos = convertNanos;
+            this.modifiedMillis = modifiedMillis;
+            this.outputPath = outputPath;
+            this.outputModifiedMillis = outputModifiedMillis;
+        }
+    }
+
+    private final Path directory;
+    private final Path objects;
+    private final long maxBytes;
+    private final String configuration;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long untouched;
+    private long savedNanos;
+
+    private OutputCache(Path directory, long maxBytes, String configuration) {
+        this.directory = directory;
+        this.objects = directory.resolve(OBJECTS_DIRECTORY);
+        this.maxBytes = maxBytes;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Opens the cache in the given directory, creating it if needed.
+     *
+     * @param directory cache directory
+     * @param maxBytes bound on the total size of the cached files
+     * @param configuration converter version and every option that changes the output bytes
+     * @throws IOException if the directory cannot be created or the index cannot be read
+     * @throws IllegalArgumentException if an argument is null or maxBytes is negative
+     */
+    public static OutputCache open(Path directory, long maxBytes, String configuration) throws IOException {
+        if (directory == null || configuration == null) {
+            throw new IllegalArgumentException("Cache directory and configuration cannot be null");
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        OutputCache cache = new OutputCache(directory, maxBytes, configuration);
+        Files.createDirectories(cache.objects);
+        cache.loadIndex();
+        // The bound may have been lowered since the last run
+        cache.evict();
+        return cache;
+    }
+
+    /**
+     * Hashes an input file together with the cache's configuration.
+     */
+    public Key key(Path inputFile) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(configuration.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return new Key(hash(digest, inputFile));
+    }
+
+    /**
+     * Puts the cached output for the key at the output path.
+     *
+     * @return true on a hit; false if the key is not cached, in which case the caller converts and
+     *         calls {@link #store(Key, Path, long)}
+     * @throws IOException if the output cannot be written
+     */
+    public boolean restore(Key key, Path outputFile) throws IOException {
+        long start = System.nanoTime();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key.hash());
+        }
+        Path object = objectPath(key);
+        if (entry == null || !isIntact(key, entry, object)) {
+            synchronized (this) {
+                misses++;
+            }
+            return false;
+        }
+
+        Path output = outputFile.toAbsolutePath().normalize();
+        boolean unchanged = Files.exists(output) && (Files.isSameFile(output, object)
+                || output.toString().equals(entry.outputPath)
+                && Files.size(output) == entry.size
+                && Files.getLastModifiedTime(output).toMillis() == entry.outputModifiedMillis);
+        if (!unchanged) {
+            Path parent = output.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.deleteIfExists(output);
+            link(object, output);
+        }
+
+        synchronized (this) {
+            entry.outputPath = output.toString();
+            entry.outputModifiedMillis = Files.getLastModifiedTime(output).toMillis();
+            hits++;
+            if (unchanged) {
+                untouched++;
+            }
+            savedNanos += Math.max(0, entry.convertNanos - (System.nanoTime() - start));
+        }
+        return true;
+    }
+
+    /**
+     * Adds a freshly written output to the cache and evicts entries past the size bound.
+     *
+     * @param convertNanos time the conversion took, reported as saved on later hits
+     * @throws IOException if the output cannot be read or the cache cannot be written
+     */
+    public void store(Key key, Path outputFile, long convertNanos) throws IOException {
+        Path output = outputFile.toAbsolutePath().normalize();
+        long size = Files.size(output);
+        if (size > maxBytes) {
+            return;
+        }
+
+        Path object = objectPath(key);
+        Files.createDirectories(object.getParent());
+        Path temporary = object.resolveSibling(key.hash() + "." + Thread.currentThread().getId() + ".tmp");
+        Files.deleteIfExists(temporary);
+        link(output, temporary);
+        Files.move(temporary, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Entry entry = new Entry(size, checksum(object), convertNanos, Files.getLastModifiedTime(object).toMillis(),
+                output.toString(), Files.getLastModifiedTime(output).toMillis());
+        synchronized (this) {
+            Entry previous = entries.put(key.hash(), entry);
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Removes least recently used entries until the cached files fit the size bound.
+     */
+    private void evict() throws IOException {
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes) {
+                Map.Entry<String, Entry> victim = eldest.next();
+                totalBytes -= victim.getValue().size;
+                evicted.add(victim.getKey());
+                eldest.remove();
+            }
+        }
+        for (String hash : evicted) {
+            Files.deleteIfExists(objectPath(new Key(hash)));
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, untouched, savedNanos);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Writes the index back, least recently used entries first, so the order survives restarts.
+     */
+    @Override
+    public void close() throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        Path temporary = directory.resolve(INDEX_FILE + ".tmp");
+        synchronized (this) {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    JSONObject line = new JSONObject()
+                            .put("key", e.getKey())
+                            .put("size", entry.size)
+                            .put("sha256", entry.checksum)
+                            .put("convertNanos", entry.convertNanos)
+                            .put("modified", entry.modifiedMillis)
+                            .put("output", entry.outputPath)
+                            .put("outputModified", entry.outputModifiedMillis);
+                    writer.write(line.toString());
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadIndex() throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.exists(index)) {
+            return;
+        }
+
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JSONObject json = new JSONObject(line);
+                String hash = json.getString("key");
+                Entry entry = new Entry(json.getLong("size"), json.getString("sha256"), json.getLong("convertNanos"),
+                        json.getLong("modified"), json.optString("output", null), json.optLong("outputModified"));
+                if (!Files.exists(objectPath(new Key(hash)))) {
+                    continue;
+                }
+                entries.put(hash, entry);
+                totalBytes += entry.size;
+            } catch (JSONException e) {
+                LOGGER.warning("Skipping malformed cache index line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks a cached file against its entry. Size and modification time are compared first;
+     * only a file whose metadata changed is hashed again.
+     */
+    private boolean isIntact(Key key, Entry entry, Path object) throws IOException {
+        try {
+            long modified = Files.getLastModifiedTime(object).toMillis();
+            if (Files.size(object) == entry.size && modified == entry.modifiedMillis) {
+                return true;
+            }
+            if (Files.size(object) == entry.size && checksum(object).equals(entry.checksum)) {
+                synchronized (this) {
+                    entry.modifiedMillis = modified;
+                }
+                return true;
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted from outside; forget it below
+        }
+
+        LOGGER.warning("Dropping cached output that changed since it was stored: " + object);
+        synchronized (this) {
+            if (entries.remove(key.hash(), entry)) {
+                totalBytes -= entry.size;
+            }
+        }
+        Files.deleteIfExists(object);
+        return false;
+    }
+
+    private Path objectPath(Key key) {
+        return objects.resolve(key.hash().substring(0, 2)).resolve(key.hash());
+    }
+
+    /**
+     * Hard-links the target to the source, copying instead where links are not supported.
+     */
+    private static void link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String checksum(Path file) throws IOException {
+        return hash(sha256(), file);
+    }
+
+    private static String hash(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when an array has more than {@link ConversionLimits#maxArrayLength()} items.
+ */
+public class ArrayTooLongException extends LimitExceededException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ArrayTooLongException(long limit) {
+        super("Array exceeds " + limit + " items", limit);
+    }
+}
@@ -0,0 +1,77 @@
+package com.marko.flawlessJsonHtml.converter;
+
+/**
+ * Upper bounds on the resources one conversion may use.
+ * <p>
+ * Limits are enforced while the input is read and the output is produced, so an oversized
+ * or hostile document fails with a {@link LimitExceededException} as soon as it crosses a
+ * bound, before it can exhaust the heap or the stack. Sizes are compared against bytes where
+ * the byte count is known (files, request bodies) and against characters while text flows
+ * through readers and writers, which never exceeds the UTF-8 byte count.
+ *
+ * @param maxInputBytes largest accepted input
+ * @param maxDepth deepest nesting of JSON objects and arrays, which also bounds element nesting
+ * @param maxElements most HTML elements written for one document
+ * @param maxArrayLength most items in one JSON array
+ * @param maxOutputBytes largest generated HTML
+ */
+public record ConversionLimits(long maxInputBytes, int maxDepth, long maxElements, int maxArrayLength,
+                               long maxOutputBytes) {
+
+    /**
+     * No limits; the behaviour of a converter created without limits.
+     */
+    public static final ConversionLimits UNLIMITED = new ConversionLimits(
+            Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * Bounds suitable for a shared service: generous for real pages, small enough that
+     * a single request cannot take the JVM down.
+     */
+    public static final ConversionLimits DEFAULT = new ConversionLimits(
+            16L * 1024 * 1024, 256, 1_000_000, 100_000, 64L * 1024 * 1024);
+
+    public ConversionLimits {
+        if (maxInputBytes < 1 || maxDepth < 1 || maxElements < 1 || maxArrayLength < 1 || maxOutputBytes < 1) {
+            throw new IllegalArgumentException("Conversion limits must be positive");
+        }
+    }
+
+    /**
+     * @return whether any limit is set
+     */
+    public boolean isBounded() {
+        return !equals(UNLIMITED);
+    }
+
+    /**
+     * Checks the size of an input before any of it is read.
+     *
+     * @throws InputTooLargeException if the input exceeds {@link #maxInputBytes()}
+     */
+    public void checkInputSize(long bytes) throws InputTooLargeException {
+        if (bytes > maxInputBytes) {
+            throw new InputTooLargeException(maxInputBytes);
+        }
+    }
+
+    public ConversionLimits withMaxInputBytes(long maxInputBytes) {
+        return new ConversionLimits(maxInputBytes, maxDepth, maxElements, maxArrayLength, maxOutputBytes);
+    }
+
+    public ConversionLimits withMaxDepth(int maxDepth) {
+        return new ConversionLimits(maxInputBytes, maxDepth, maxElements, maxArrayLength, maxOutputBytes);
+    }
+
+    public ConversionLimits withMaxElements(long maxElements) {
+        return new ConversionLimits(maxInputBytes, maxDepth, maxElements, maxArrayLength, maxOutputBytes);
+    }
+
+    public ConversionLimits withMaxArrayLength(int maxArrayLength) {
+        return new ConversionLimits(maxInputBytes, maxDepth, maxElements, maxArrayLength, maxOutputBytes);
+    }
+
+    public ConversionLimits withMaxOutputBytes(long maxOutputBytes) {
+        return new ConversionLimits(maxInputBytes, maxDepth, maxElements, maxArrayLength, maxOutputBytes);
+    }
+}
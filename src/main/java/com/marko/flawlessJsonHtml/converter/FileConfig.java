@@ -2,7 +2,13 @@ package com.marko.flawlessJsonHtml.converter;
 
 import java.nio.file.Path;
 
-public record FileConfig(Path inputFile, Path outputFile) {
+/**
+ * Input and output of one file conversion.
+ *
+ * @param streaming render while parsing instead of building the JSON tree
+ * @param mapped read through a memory mapping and write through a file channel
+ */
+public record FileConfig(Path inputFile, Path outputFile, boolean streaming, boolean mapped) {
     public FileConfig {
         if (inputFile == null) {
             throw new IllegalArgumentException("Input file path cannot be null");
@@ -11,4 +17,12 @@ public record FileConfig(Path inputFile, Path outputFile) {
             throw new IllegalArgumentException("Output file path cannot be null");
         }
     }
+
+    public FileConfig(Path inputFile, Path outputFile) {
+        this(inputFile, outputFile, false, false);
+    }
+
+    public FileConfig(Path inputFile, Path outputFile, boolean streaming) {
+        this(inputFile, outputFile, streaming, false);
+    }
 }
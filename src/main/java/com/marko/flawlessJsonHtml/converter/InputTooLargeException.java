@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when the input is larger than {@link ConversionLimits#maxInputBytes()}.
+ */
+public class InputTooLargeException extends LimitExceededException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public InputTooLargeException(long limit) {
+        super("Input exceeds " + limit + " bytes", limit);
+    }
+}
@@ -2,8 +2,26 @@ package com.marko.flawlessJsonHtml.converter;
 
 import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
 import com.marko.flawlessJsonHtml.html.HtmlUtils;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import com.marko.flawlessJsonHtml.html.RenderContext;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.JsonTypeException;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
+import com.marko.flawlessJsonHtml.stream.StreamingHtmlRenderer;
 import org.json.JSONException;
 import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -17,17 +35,111 @@ import java.util.logging.Level;
  *   "head": { ... },
  *   "body": { ... }
  * }
+ * <p>
+ * A converter is immutable once built and safe to share between threads; per-call state lives in a
+ * {@link RenderContext} created for each conversion. Tree conversions render into buffers borrowed
+ * from an {@link OutputBufferPool}, so a shared converter reuses a handful of buffers sized to the
+ * typical page instead of growing a fresh one per call.
+ * <p>
+ * Pages that share a head can be rendered as one {@link SharedHead} plus one body per page; see
+ * {@link #renderHead} and {@link #convertPage}.
  */
 public class JsonHtmlConverter {
 
-    private static final Logger LOGGER = Logger.getLogger(JsonHtmlConverter.class.getName());
+    /**
+     * Version of the generated markup. Raised whenever the output for an unchanged input and
+     * unchanged options changes, which invalidates outputs cached under the old version.
+     */
+    public static final String VERSION = "1.0.0";
+
     private static final String DEFAULT_LANGUAGE = "en";
     private static final String DEFAULT_DOCTYPE = "html";
 
     private final HtmlElementBuilder elementBuilder;
+    private final OutputFormat format;
+    private final StreamingHtmlRenderer streamingRenderer;
+    private final ConversionLimits limits;
+    private final OutputBufferPool buffers;
+
+    private static final class Log {
+        private static final Logger LOGGER = Logger.getLogger(JsonHtmlConverter.class.getName());
+    }
 
     public JsonHtmlConverter() {
-        this.elementBuilder = new HtmlElementBuilder();
+        this(new HtmlElementBuilder());
+    }
+
+    /**
+     * Creates a converter that renders elements with the given builder, for example a parallel
+     * or minifying one. The document framing follows the builder's output format.
+     */
+    public JsonHtmlConverter(HtmlElementBuilder elementBuilder) {
+        this(elementBuilder, ConversionLimits.UNLIMITED);
+    }
+
+    /**
+     * Creates a converter that stops every conversion crossing one of the given limits
+     * with the matching {@link LimitExceededException}.
+     */
+    public JsonHtmlConverter(HtmlElementBuilder elementBuilder, ConversionLimits limits) {
+        this(elementBuilder, limits, new OutputBufferPool());
+    }
+
+    /**
+     * Creates a converter that renders into buffers from the given pool, which may be shared with
+     * other converters.
+     */
+    public JsonHtmlConverter(HtmlElementBuilder elementBuilder, ConversionLimits limits, OutputBufferPool buffers) {
+        if (elementBuilder == null || limits == null || buffers == null) {
+            throw new IllegalArgumentException("Element builder, limits and buffer pool cannot be null");
+        }
+        this.elementBuilder = elementBuilder;
+        this.limits = limits;
+        this.buffers = buffers;
+        this.format = elementBuilder.format();
+        this.streamingRenderer = new StreamingHtmlRenderer(elementBuilder, StreamingHtmlRenderer.DEFAULT_LOOKAHEAD_LIMIT);
+    }
+
+    public ConversionLimits limits() {
+        return limits;
+    }
+
+    /**
+     * Parses a JSON document into a tree. With bounded limits the text is first scanned
+     * without building anything, so a document that is too large, too deep or has too long
+     * arrays is rejected before the tree is allocated. The scan does not check the grammar,
+     * so limits never change which documents org.json accepts.
+     *
+     * @param json JSON text
+     * @return parsed root object
+     * @throws LimitExceededException if the text exceeds an input limit
+     * @throws JsonHtmlConversionException if the text is not a JSON object
+     * @throws IllegalArgumentException if json is null
+     */
+    public JSONObject parse(String json) throws JsonHtmlConversionException {
+        if (json == null) {
+            throw new IllegalArgumentException("JSON text cannot be null");
+        }
+        if (limits.isBounded()) {
+            new LimitScanner(limits).scan(json);
+        }
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            throw new JsonHtmlConversionException("Invalid JSON format. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a JSON document to its end without keeping any of it, checking input size,
+     * nesting depth and array lengths. The grammar is left to the parser that follows.
+     *
+     * @throws LimitExceededException if the input exceeds a limit
+     * @throws IOException if reading fails
+     * @see LimitScanner
+     */
+    public void checkInput(Reader input) throws LimitExceededException, IOException {
+        new LimitScanner(limits).scan(input);
     }
 
     /**
@@ -39,57 +151,384 @@ public class JsonHtmlConverter {
      * @throws IllegalArgumentException if root is null
      */
     public String convert(JSONObject root) throws JsonHtmlConversionException {
+        return convert(root, ConversionMetrics.NOOP);
+    }
+
+    /**
+     * Converts a JSON object to HTML string, recording the convert stage and element counts.
+     *
+     * @param root the JSON object to convert
+     * @param metrics measurement sink, {@link ConversionMetrics#NOOP} to disable
+     * @return HTML string representation
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IllegalArgumentException if root or metrics is null
+     */
+    public String convert(JSONObject root, ConversionMetrics metrics) throws JsonHtmlConversionException {
+        if (root == null) {
+            throw new IllegalArgumentException("JSON root cannot be null");
+        }
+        return convert(OrgJsonNode.of(root), metrics);
+    }
+
+    /**
+     * Converts a document of any {@link com.marko.flawlessJsonHtml.model.JsonBackend} to HTML string.
+     *
+     * @param root the document root, which must be an object
+     * @param metrics measurement sink, {@link ConversionMetrics#NOOP} to disable
+     * @return HTML string representation
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IllegalArgumentException if root or metrics is null
+     */
+    public String convert(JsonNode root, ConversionMetrics metrics) throws JsonHtmlConversionException {
+        OutputBufferPool.Buffer buffer = buffers.acquire();
+        try {
+            render(root, buffer.html(), metrics);
+            return buffer.html().toString();
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Converts a JSON object to HTML and appends it to the given sink.
+     *
+     * @see #convert(JsonNode, Appendable, ConversionMetrics)
+     */
+    public void convert(JSONObject root, Appendable output, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
         if (root == null) {
             throw new IllegalArgumentException("JSON root cannot be null");
         }
+        convert(OrgJsonNode.of(root), output, metrics);
+    }
 
+    /**
+     * Converts a document to HTML and appends it to the given sink without creating an HTML string.
+     * The page is rendered into a pooled buffer first, so a failed conversion writes nothing to the
+     * sink; writers receive it in fixed-size chunks. Copying the buffer into the sink is recorded
+     * as the write stage.
+     *
+     * @param root the document root, which must be an object
+     * @param output HTML destination, neither flushed nor closed
+     * @param metrics measurement sink, {@link ConversionMetrics#NOOP} to disable
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IOException if writing to the sink fails
+     * @throws IllegalArgumentException if root, output or metrics is null
+     */
+    public void convert(JsonNode root, Appendable output, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("Output cannot be null");
+        }
+        OutputBufferPool.Buffer buffer = buffers.acquire();
         try {
-            StringBuilder html = new StringBuilder();
+            render(root, buffer.html(), metrics);
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            buffer.writeTo(output);
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.WRITE, System.nanoTime() - start);
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+    }
 
+    /**
+     * Converts a document into a buffer borrowed from this converter's pool, for callers that write
+     * the page later or on another thread. The buffer goes back with {@link #releaseBuffer} once
+     * it has been written; on failure it is released here.
+     *
+     * @param root the document root, which must be an object
+     * @param metrics measurement sink, {@link ConversionMetrics#NOOP} to disable
+     * @return buffer holding the page
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IllegalArgumentException if root or metrics is null
+     */
+    public OutputBufferPool.Buffer convertToBuffer(JsonNode root, ConversionMetrics metrics)
+            throws JsonHtmlConversionException {
+        OutputBufferPool.Buffer buffer = buffers.acquire();
+        boolean rendered = false;
+        try {
+            render(root, buffer.html(), metrics);
+            rendered = true;
+            return buffer;
+        } finally {
+            if (!rendered) {
+                buffers.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #convertToBuffer} to the pool. It must not be used afterwards.
+     */
+    public void releaseBuffer(OutputBufferPool.Buffer buffer) {
+        buffers.release(buffer);
+    }
+
+    /**
+     * Renders the doctype, the opening html tag and the head of a document once, for pages that
+     * share them. A body in the document is ignored.
+     *
+     * @param root document root with "doctype", "language" and "head", which must be an object
+     * @param metrics measurement sink for the head, {@link ConversionMetrics#NOOP} to disable
+     * @return the rendered head
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IllegalArgumentException if root or metrics is null
+     */
+    public SharedHead renderHead(JsonNode root, ConversionMetrics metrics) throws JsonHtmlConversionException {
+        if (root == null) {
+            throw new IllegalArgumentException("JSON root cannot be null");
+        }
+        if (!root.isObject()) {
+            throw new JsonHtmlConversionException("JSON root must be an object");
+        }
+
+        RenderContext context = new RenderContext(metrics, limits);
+        OutputBufferPool.Buffer buffer = buffers.acquire();
+        try {
+            StringBuilder html = buffer.html();
+            buildDoctype(root, html);
+            buildHtmlOpenTag(root, html, context);
+            buildHead(root, html, context);
+            context.output(html.length());
+            return new SharedHead(html.toString(), context.elementCount());
+        } catch (JSONException | JsonTypeException e) {
+            Log.LOGGER.log(Level.SEVERE, "Failed to convert JSON head to HTML", e);
+            throw new JsonHtmlConversionException("Failed to convert JSON head to HTML: " + e.getMessage(), e);
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Renders a page body after a shared head and writes the whole page as UTF-8. The page equals
+     * the conversion of a document with the head's doctype, language and head and this body, and
+     * is checked against the same limits. The body is rendered into a pooled buffer first, so a
+     * failed page writes nothing.
+     * <p>
+     * Many pages may be rendered with the same head at once.
+     *
+     * @param head head rendered by {@link #renderHead} of this converter
+     * @param body the page's "body" object
+     * @param output HTML destination, flushed but not closed
+     * @param metrics measurement sink for the body, {@link ConversionMetrics#NOOP} to disable
+     * @throws JsonHtmlConversionException if conversion fails
+     * @throws IOException if writing to the output fails
+     * @throws IllegalArgumentException if head, body, output or metrics is null
+     */
+    public void convertPage(SharedHead head, JsonNode body, OutputStream output, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
+        if (head == null || body == null || output == null) {
+            throw new IllegalArgumentException("Head, body and output cannot be null");
+        }
+        if (!body.isObject()) {
+            throw new JsonHtmlConversionException("Page body must be an object");
+        }
+
+        RenderContext context = new RenderContext(metrics, limits);
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        OutputBufferPool.Buffer buffer = buffers.acquire();
+        try {
+            StringBuilder html = buffer.html();
+            try {
+                context.countRendered(head.elements());
+                buildBody(body, html, context);
+                html.append("</html>");
+                context.output((long) head.length() + html.length());
+            } catch (JSONException | JsonTypeException e) {
+                Log.LOGGER.log(Level.SEVERE, "Failed to convert JSON to HTML", e);
+                throw new JsonHtmlConversionException("Failed to convert JSON to HTML: " + e.getMessage(), e);
+            }
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.CONVERT, System.nanoTime() - start);
+            }
+
+            head.writeTo(output);
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            buffer.writeTo(writer);
+            writer.flush();
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private void render(JsonNode root, StringBuilder html, ConversionMetrics metrics)
+            throws JsonHtmlConversionException {
+        if (root == null) {
+            throw new IllegalArgumentException("JSON root cannot be null");
+        }
+        if (!root.isObject()) {
+            throw new JsonHtmlConversionException("JSON root must be an object");
+        }
+
+        RenderContext context = new RenderContext(metrics, limits);
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
             buildDoctype(root, html);
-            buildHtmlOpenTag(root, html);
-            buildHead(root, html);
-            buildBody(root, html);
+            buildHtmlOpenTag(root, html, context);
+            buildHead(root, html, context);
+            if (root.get("body") != null) {
+                buildBody(root.object("body"), html, context);
+            }
             html.append("</html>");
+            context.output(html.length());
 
-            return html.toString();
+            if (metrics.isEnabled()) {
+                metrics.recordStage(ConversionMetrics.Stage.CONVERT, System.nanoTime() - start);
+            }
 
-        } catch (JSONException e) {
-            LOGGER.log(Level.SEVERE, "Failed to convert JSON to HTML", e);
+        } catch (JSONException | JsonTypeException e) {
+            Log.LOGGER.log(Level.SEVERE, "Failed to convert JSON to HTML", e);
             throw new JsonHtmlConversionException("Failed to convert JSON to HTML: " + e.getMessage(), e);
         }
     }
 
-    private void buildDoctype(JSONObject root, StringBuilder html) throws JSONException {
-        String doctype = root.optString("doctype", DEFAULT_DOCTYPE);
-        html.append("<!DOCTYPE ").append(doctype).append(">\n");
+    /**
+     * Streams a JSON document to HTML without materializing the JSON tree or the HTML string.
+     * Elements are written in source order; see {@link StreamingHtmlRenderer} for details.
+     *
+     * @param input JSON source
+     * @param output HTML destination, flushed but not closed
+     * @throws JsonHtmlConversionException if the JSON is invalid or cannot be streamed
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if input or output is null
+     */
+    public void convert(Reader input, Writer output) throws JsonHtmlConversionException, IOException {
+        convert(input, output, ConversionMetrics.NOOP);
     }
 
-    private void buildHtmlOpenTag(JSONObject root, StringBuilder html) throws JSONException {
-        String language = root.optString("language", DEFAULT_LANGUAGE);
-        html.append("<html lang=\"").append(HtmlUtils.escapeAttribute(language)).append("\">\n");
+    /**
+     * Streams a JSON document to HTML, recording element counts. Reading, parsing and
+     * rendering are interleaved, so their combined time is recorded as the convert stage.
+     *
+     * @see #convert(Reader, Writer)
+     */
+    public void convert(Reader input, Writer output, ConversionMetrics metrics)
+            throws JsonHtmlConversionException, IOException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output cannot be null");
+        }
+
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        if (limits.isBounded()) {
+            LimitedWriter limited = new LimitedWriter(output, limits.maxOutputBytes());
+            try {
+                streamingRenderer.render(input, limited, new RenderContext(metrics, limits));
+            } catch (IOException e) {
+                if (limited.exceeded) {
+                    throw new OutputTooLargeException(limits.maxOutputBytes());
+                }
+                throw e;
+            }
+        } else {
+            streamingRenderer.render(input, output, new RenderContext(metrics));
+        }
+        output.flush();
+        if (metrics.isEnabled()) {
+            metrics.recordStage(ConversionMetrics.Stage.CONVERT, System.nanoTime() - start);
+        }
     }
 
-    private void buildHead(JSONObject root, StringBuilder html) throws JSONException {
-        if (!root.has("head")) {
-            return;
+    /**
+     * Streams UTF-8 encoded JSON to UTF-8 encoded HTML.
+     *
+     * @see #convert(Reader, Writer)
+     */
+    public void convert(InputStream input, OutputStream output) throws JsonHtmlConversionException, IOException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output cannot be null");
         }
 
-        html.append("\t<head>\n");
-        elementBuilder.buildElements(root.getJSONObject("head"), html, 2);
-        html.append("\t</head>\n");
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        convert(reader, writer);
+    }
+
+    private static String optString(JsonNode root, String name, String defaultValue) {
+        JsonNode value = root.get(name);
+        return value == null || value.type() == JsonNode.Type.NULL ? defaultValue : value.text();
+    }
+
+    private void buildDoctype(JsonNode root, StringBuilder html) {
+        String doctype = optString(root, "doctype", DEFAULT_DOCTYPE);
+        html.append("<!DOCTYPE ").append(doctype).append(">").append(format.lineEnd());
     }
 
-    private void buildBody(JSONObject root, StringBuilder html) throws JSONException {
-        if (!root.has("body")) {
+    private void buildHtmlOpenTag(JsonNode root, StringBuilder html, RenderContext context)
+            throws LimitExceededException {
+        String language = optString(root, "language", DEFAULT_LANGUAGE);
+        html.append("<html lang=\"");
+        context.escape(HtmlUtils.escapeAttribute(language, html));
+        html.append("\">").append(format.lineEnd());
+        context.element("html", 0);
+    }
+
+    private void buildHead(JsonNode root, StringBuilder html, RenderContext context)
+            throws LimitExceededException {
+        if (root.get("head") == null) {
             return;
         }
 
-        JSONObject body = root.getJSONObject("body");
-        String attributes = HtmlUtils.formatAttributes(body.optJSONObject("attributes"));
+        html.append(format.indent(1)).append("<head>").append(format.lineEnd());
+        context.element("head", 1);
+        elementBuilder.buildElements(root.object("head"), html, 2, context);
+        html.append(format.indent(1)).append("</head>").append(format.lineEnd());
+    }
+
+    private void buildBody(JsonNode body, StringBuilder html, RenderContext context)
+            throws LimitExceededException {
+        html.append(format.indent(1)).append("<body");
+        HtmlUtils.formatAttributes(body.optObject("attributes"), html, context.metrics());
+        html.append(">").append(format.lineEnd());
+        context.element("body", 1);
+        elementBuilder.buildBodyElements(body, html, 2, context);
+        html.append(format.indent(1)).append("</body>").append(format.lineEnd());
+    }
+
+    /**
+     * Fails the write that would take the output past its limit. Streaming output goes
+     * straight to its destination, so the limit is enforced on the writer rather than on a buffer.
+     */
+    private static final class LimitedWriter extends FilterWriter {
+        private final long maxLength;
+        private long length;
+        private boolean exceeded;
+
+        LimitedWriter(Writer out, long maxLength) {
+            super(out);
+            this.maxLength = maxLength;
+        }
 
-        html.append("\t<body").append(attributes).append(">\n");
-        elementBuilder.buildBodyElements(body, html, 2);
-        html.append("\t</body>\n");
+        @Override
+        public void write(int c) throws IOException {
+            count(1);
+            out.write(c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int count) throws IOException {
+            count(count);
+            out.write(chars, offset, count);
+        }
+
+        @Override
+        public void write(String text, int offset, int count) throws IOException {
+            count(count);
+            out.write(text, offset, count);
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the underlying writer
+        }
+
+        private void count(int count) throws IOException {
+            length += count;
+            if (length > maxLength) {
+                exceeded = true;
+                throw new IOException("Output limit of " + maxLength + " exceeded");
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when a conversion crosses one of its {@link ConversionLimits}.
+ * Each limit has its own subtype, so callers can tell a rejected document from a broken one.
+ */
+public abstract class LimitExceededException extends JsonHtmlConversionException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long limit;
+
+    protected LimitExceededException(String message, long limit) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * @return the limit that was exceeded
+     */
+    public long limit() {
+        return limit;
+    }
+}
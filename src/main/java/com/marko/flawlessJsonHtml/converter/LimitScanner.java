@@ -0,0 +1,143 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Checks JSON text against input size, nesting depth and array length limits before a
+ * parser that cannot be stopped part way builds a tree from it.
+ * <p>
+ * The scan only follows brackets, quoted strings and commas; it does not check the grammar,
+ * so it accepts everything a lenient parser such as org.json accepts (single-quoted strings,
+ * unquoted keys, trailing commas) and leaves syntax errors for that parser to report. No
+ * tokens or strings are created, so the scan costs one pass over the characters.
+ */
+public final class LimitScanner {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ConversionLimits limits;
+
+    public LimitScanner(ConversionLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Limits cannot be null");
+        }
+        this.limits = limits;
+    }
+
+    /**
+     * Scans JSON text to its end.
+     *
+     * @throws LimitExceededException if the text exceeds a limit
+     */
+    public void scan(CharSequence json) throws LimitExceededException {
+        State state = new State();
+        state.count(json.length());
+        for (int i = 0; i < json.length(); i++) {
+            state.accept(json.charAt(i));
+        }
+    }
+
+    /**
+     * Reads JSON text to its end without keeping any of it.
+     *
+     * @throws LimitExceededException if the input exceeds a limit
+     * @throws IOException if reading fails
+     */
+    public void scan(Reader input) throws LimitExceededException, IOException {
+        State state = new State();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            state.count(read);
+            for (int i = 0; i < read; i++) {
+                state.accept(buffer[i]);
+            }
+        }
+    }
+
+    /**
+     * Position of the scan: the open containers, the element count of each open array and
+     * whether the scan is inside a quoted string.
+     */
+    private final class State {
+        private boolean[] arrays = new boolean[32];
+        private int[] lengths = new int[32];
+        private int depth;
+        private long consumed;
+        private char quote;
+        private boolean escaped;
+        // Set after '[' and after ',' in an array, until the next element starts
+        private boolean awaitingElement;
+
+        void count(int characters) throws InputTooLargeException {
+            consumed += characters;
+            if (consumed > limits.maxInputBytes()) {
+                throw new InputTooLargeException(limits.maxInputBytes());
+            }
+        }
+
+        void accept(char c) throws LimitExceededException {
+            if (quote != 0) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                return;
+            }
+            if (Character.isWhitespace(c)) {
+                return;
+            }
+
+            if (awaitingElement && c != ']') {
+                // A ',' right after '[' or ',' is an empty element, which org.json reads as null
+                element();
+                awaitingElement = c == ',';
+                if (awaitingElement) {
+                    return;
+                }
+            }
+
+            switch (c) {
+                case '"', '\'' -> quote = c;
+                case '{' -> push(false);
+                case '[' -> {
+                    push(true);
+                    awaitingElement = true;
+                }
+                case '}', ']' -> {
+                    if (depth > 0) {
+                        depth--;
+                    }
+                    awaitingElement = false;
+                }
+                case ',' -> awaitingElement = depth > 0 && arrays[depth - 1];
+                default -> {
+                    // Keys, separators and scalars do not affect the limits
+                }
+            }
+        }
+
+        private void element() throws ArrayTooLongException {
+            if (depth > 0 && ++lengths[depth - 1] > limits.maxArrayLength()) {
+                throw new ArrayTooLongException(limits.maxArrayLength());
+            }
+        }
+
+        private void push(boolean array) throws NestingTooDeepException {
+            if (depth == limits.maxDepth()) {
+                throw new NestingTooDeepException(limits.maxDepth());
+            }
+            if (depth == arrays.length) {
+                arrays = Arrays.copyOf(arrays, depth * 2);
+                lengths = Arrays.copyOf(lengths, depth * 2);
+            }
+            arrays[depth] = array;
+            lengths[depth++] = 0;
+        }
+    }
+}
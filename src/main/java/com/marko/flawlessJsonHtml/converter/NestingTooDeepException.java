@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when objects and arrays nest deeper than {@link ConversionLimits#maxDepth()}.
+ */
+public class NestingTooDeepException extends LimitExceededException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public NestingTooDeepException(long limit) {
+        super("Nesting exceeds depth " + limit, limit);
+    }
+}
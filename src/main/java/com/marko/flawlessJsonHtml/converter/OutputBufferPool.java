@@ -0,0 +1,149 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Striped pool of output buffers for concurrent conversions.
+ * <p>
+ * Each conversion borrows a buffer, renders into it and returns it, so a steady stream of
+ * requests reuses the same few buffers instead of growing a fresh {@link StringBuilder} per page.
+ * Buffers are spread over stripes picked by thread id, so threads rarely contend for the same
+ * slot; an empty slot simply means a new buffer. New buffers are sized from a running average of
+ * recent output sizes, and buffers that grew far beyond it are dropped rather than kept, so one
+ * huge page does not pin its memory for good.
+ * <p>
+ * Safe to share between threads.
+ */
+public final class OutputBufferPool {
+
+    /**
+     * Default largest buffer capacity, in characters, kept for reuse.
+     */
+    public static final int DEFAULT_MAX_RETAINED_CHARS = 4 * 1024 * 1024;
+
+    private static final int INITIAL_ESTIMATE = 16 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    /**
+     * A borrowed buffer: the output builder and a scratch array for copying it to writers.
+     */
+    public static final class Buffer {
+        private final StringBuilder html;
+        private char[] chunk;
+
+        private Buffer(int capacity) {
+            this.html = new StringBuilder(capacity);
+        }
+
+        public StringBuilder html() {
+            return html;
+        }
+
+        /**
+         * Copies the buffered output to the sink without creating an intermediate String.
+         */
+        public void writeTo(Appendable out) throws IOException {
+            if (out instanceof StringBuilder) {
+                ((StringBuilder) out).append(html);
+            } else if (out instanceof Writer) {
+                if (chunk == null) {
+                    chunk = new char[CHUNK_SIZE];
+                }
+                Writer writer = (Writer) out;
+                for (int from = 0; from < html.length(); from += chunk.length) {
+                    int to = Math.min(html.length(), from + chunk.length);
+                    html.getChars(from, to, chunk, 0);
+                    writer.write(chunk, 0, to - from);
+                }
+            } else {
+                out.append(html);
+            }
+        }
+    }
+
+    private final AtomicReferenceArray<Buffer> stripes;
+    private final int maxRetainedChars;
+    // Racy updates only blur the average, which is all it is used for
+    private volatile int estimate = INITIAL_ESTIMATE;
+
+    /**
+     * Creates a pool with two stripes per available processor.
+     */
+    public OutputBufferPool() {
+        this(Runtime.getRuntime().availableProcessors() * 2, DEFAULT_MAX_RETAINED_CHARS);
+    }
+
+    /**
+     * @param stripes number of buffers kept for reuse
+     * @param maxRetainedChars largest buffer capacity kept for reuse
+     */
+    public OutputBufferPool(int stripes, int maxRetainedChars) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Pool needs at least one stripe");
+        }
+        if (maxRetainedChars < 0) {
+            throw new IllegalArgumentException("Retained capacity cannot be negative");
+        }
+        this.stripes = new AtomicReferenceArray<>(stripes);
+        this.maxRetainedChars = maxRetainedChars;
+    }
+
+    /**
+     * @return an empty buffer with room for an output of the estimated size
+     */
+    public Buffer acquire() {
+        int expected = estimate + (estimate >> 2);
+        Buffer buffer = stripes.getAndSet(stripe(), null);
+        if (buffer == null) {
+            return new Buffer(expected);
+        }
+        buffer.html.ensureCapacity(Math.min(expected, maxRetainedChars));
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire()} and folds its output size into the estimate.
+     * The buffer must not be used afterwards.
+     */
+    public void release(Buffer buffer) {
+        int length = buffer.html.length();
+        estimate = Math.max(INITIAL_ESTIMATE / 4, estimate + (length - estimate) / 8);
+
+        if (buffer.html.capacity() > maxRetainedChars) {
+            return;
+        }
+        buffer.html.setLength(0);
+        int stripe = stripe();
+        if (!stripes.compareAndSet(stripe, null, buffer)) {
+            // One neighbour is tried so bursts on one stripe still find room
+            stripes.compareAndSet((stripe + 1) % stripes.length(), null, buffer);
+        }
+    }
+
+    /**
+     * @return current estimate of the output size, in characters
+     */
+    public int estimate() {
+        return estimate;
+    }
+
+    /**
+     * @return number of idle buffers currently held
+     */
+    public int idleCount() {
+        int idle = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            if (stripes.get(i) != null) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % stripes.length();
+    }
+}
@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when the generated HTML grows past {@link ConversionLimits#maxOutputBytes()}.
+ */
+public class OutputTooLargeException extends LimitExceededException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public OutputTooLargeException(long limit) {
+        super("Output exceeds " + limit + " bytes", limit);
+    }
+}
@@ -0,0 +1,61 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rendered start of a page, from the doctype to the closing head tag, shared by many pages.
+ * <p>
+ * Produced by {@link JsonHtmlConverter#renderHead} and written before each page body by
+ * {@link JsonHtmlConverter#convertPage}. The markup is kept as UTF-8 bytes, so pages copy it
+ * without encoding it again. Besides the bytes, the head remembers how many characters and
+ * elements it took, which each page counts against its limits as a whole conversion would.
+ * <p>
+ * Immutable and safe to share between threads.
+ */
+public final class SharedHead {
+
+    private final byte[] html;
+    private final int length;
+    private final long elements;
+
+    SharedHead(String html, long elements) {
+        this.html = html.getBytes(StandardCharsets.UTF_8);
+        this.length = html.length();
+        this.elements = elements;
+    }
+
+    /**
+     * @return length of the markup in characters
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return length of the markup in UTF-8 bytes
+     */
+    public int byteLength() {
+        return html.length;
+    }
+
+    /**
+     * @return number of elements the head counted against the element limit
+     */
+    public long elements() {
+        return elements;
+    }
+
+    /**
+     * Writes the markup as UTF-8 bytes.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(html);
+    }
+
+    @Override
+    public String toString() {
+        return new String(html, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.converter;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown when a document produces more than {@link ConversionLimits#maxElements()} elements.
+ */
+public class TooManyElementsException extends LimitExceededException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public TooManyElementsException(long limit) {
+        super("Document exceeds " + limit + " elements", limit);
+    }
+}
@@ -1,183 +1,619 @@
 package com.marko.flawlessJsonHtml.html;
 
-import org.json.JSONArray;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Logger;
 
 
+/**
+ * Renders JSON elements as HTML.
+ * <p>
+ * A builder holds only its configuration, so one instance can serve any number of threads at once;
+ * everything a single rendering tracks goes through the {@link RenderContext} passed to each call.
+ */
 public class HtmlElementBuilder {
 
-    private static final Logger LOGGER = Logger.getLogger(HtmlElementBuilder.class.getName());
+    /**
+     * Default number of sibling elements from which a parallel builder splits the work.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 512;
+
+    /**
+     * Smallest number of siblings rendered by one task, so task overhead stays small.
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    /**
+     * Default number of repeated subtrees a memoizing builder keeps per document.
+     */
+    public static final int DEFAULT_MEMO_ENTRIES = 4096;
+
+    /**
+     * Default number of markup characters a memoizing builder keeps per document.
+     */
+    public static final long DEFAULT_MEMO_CHARS = 8L * 1024 * 1024;
+
+    /**
+     * Indentation level from which a recursive builder walks the rest of a subtree iteratively,
+     * so a valid but very deep document cannot overflow the thread stack.
+     */
+    private static final int MAX_RECURSIVE_DEPTH = 256;
+
+    /**
+     * How a builder walks nested elements.
+     */
+    public enum Traversal {
+        /**
+         * Recursive descent; subtrees nested deeper than a few hundred levels continue
+         * iteratively, so the thread stack only bounds the shallow part.
+         */
+        RECURSIVE,
+
+        /**
+         * Explicit stack on the heap, for documents nested too deep for the thread stack.
+         * Always sequential.
+         */
+        ITERATIVE
+    }
 
+    private final OutputFormat format;
+    private final Traversal traversal;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int memoEntries;
+    private final long memoChars;
 
-    private enum SelfClosingTag {
-        META("meta"), LINK("link"), IMG("img"), BR("br"),
-        HR("hr"), INPUT("input"), SOURCE("source"),
-        TRACK("track"), WBR("wbr");
+    private static final class Log {
+        private static final Logger LOGGER = Logger.getLogger(HtmlElementBuilder.class.getName());
+    }
 
-        private final String tagName;
-        private static final Set<String> TAG_NAMES = EnumSet.allOf(SelfClosingTag.class)
-                .stream()
-                .map(tag -> tag.tagName)
-                .collect(java.util.stream.Collectors.toSet());
+    public HtmlElementBuilder() {
+        this(OutputFormat.PRETTY);
+    }
 
-        SelfClosingTag(String tagName) {
-            this.tagName = tagName;
+    /**
+     * Creates a sequential builder that writes the given layout.
+     */
+    public HtmlElementBuilder(OutputFormat format) {
+        this(format, Traversal.RECURSIVE);
+    }
+
+    /**
+     * Creates a sequential builder that writes the given layout and walks elements as given.
+     */
+    public HtmlElementBuilder(OutputFormat format, Traversal traversal) {
+        if (format == null || traversal == null) {
+            throw new IllegalArgumentException("Output format and traversal cannot be null");
         }
+        this.format = format;
+        this.traversal = traversal;
+        this.pool = null;
+        this.parallelThreshold = Integer.MAX_VALUE;
+        this.memoEntries = 0;
+        this.memoChars = 0;
+    }
 
-        public static boolean contains(String tagName) {
-            return TAG_NAMES.contains(tagName.toLowerCase());
+    /**
+     * Creates a builder that renders wide sibling lists in parallel. Siblings are split into
+     * chunks that render into their own buffers and are joined in document order, so the output
+     * is identical to sequential rendering. Conversions that record metrics stay sequential;
+     * conversions with limits check them in each chunk and raise the failure a sequential build
+     * would raise.
+     *
+     * @param pool pool that runs the chunks
+     * @param parallelThreshold smallest number of siblings that is split
+     */
+    public HtmlElementBuilder(ForkJoinPool pool, int parallelThreshold) {
+        this(OutputFormat.PRETTY, pool, parallelThreshold);
+    }
+
+    /**
+     * Creates a parallel builder that writes the given layout.
+     *
+     * @see #HtmlElementBuilder(ForkJoinPool, int)
+     */
+    public HtmlElementBuilder(OutputFormat format, ForkJoinPool pool, int parallelThreshold) {
+        if (format == null) {
+            throw new IllegalArgumentException("Output format cannot be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Fork-join pool cannot be null");
         }
+        if (parallelThreshold < 2) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 2");
+        }
+        this.format = format;
+        this.traversal = Traversal.RECURSIVE;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.memoEntries = 0;
+        this.memoChars = 0;
     }
 
-    private static final List<String> BODY_ELEMENT_ORDER = Arrays.asList(
-            "header", "nav", "main", "section", "article", "aside", "footer",
-            "h1", "h2", "h3", "h4", "h5", "h6",
-            "p", "blockquote", "pre", "code",
-            "ul", "ol", "li", "dl", "dt", "dd",
-            "div", "span", "a", "img", "video", "audio",
-            "form", "input", "button", "select", "textarea"
-    );
+    private HtmlElementBuilder(HtmlElementBuilder builder, int memoEntries, long memoChars) {
+        this.format = builder.format;
+        this.traversal = builder.traversal;
+        this.pool = builder.pool;
+        this.parallelThreshold = builder.parallelThreshold;
+        this.memoEntries = memoEntries;
+        this.memoChars = memoChars;
+    }
+
+    /**
+     * Returns a builder like this one that renders repeated subtrees once per document.
+     * <p>
+     * Objects and arrays that occur more than once under the same tag keep their markup for the
+     * rest of the rendering; later copies append it, reindented when they sit at another depth.
+     * Copies are recognized by their source text in models that keep it, such as
+     * {@link com.marko.flawlessJsonHtml.model.FlatJsonDocument}, and otherwise only when the same
+     * object is reached twice. The output is unchanged. Renderings that record metrics or
+     * enforce limits count every element and are not memoized.
+     *
+     * @param maxEntries most subtrees kept per document
+     * @param maxChars most markup characters kept per document
+     * @throws IllegalStateException if this builder is parallel or iterative
+     */
+    public HtmlElementBuilder withMemoization(int maxEntries, long maxChars) {
+        if (maxEntries < 1 || maxChars < 1) {
+            throw new IllegalArgumentException("Memo bounds must be positive");
+        }
+        if (pool != null || traversal != Traversal.RECURSIVE) {
+            throw new IllegalStateException("Memoization needs a sequential recursive builder");
+        }
+        return new HtmlElementBuilder(this, maxEntries, maxChars);
+    }
+
+    /**
+     * @return layout written by this builder; document framing should follow it too
+     */
+    public OutputFormat format() {
+        return format;
+    }
+
+    /**
+     * Checks whether a tag is a void element that is written without a closing tag.
+     */
+    public static boolean isSelfClosingTag(String tagName) {
+        return TagDescriptor.of(tagName).isSelfClosing();
+    }
 
     /**
      * Builds HTML elements from a JSON object.
      */
-    public void buildElements(JSONObject json, StringBuilder html, int indentLevel) throws JSONException {
+    public void buildElements(JSONObject json, StringBuilder html, int indentLevel)
+            throws JSONException, LimitExceededException {
+        buildElements(json, html, indentLevel, RenderContext.untracked());
+    }
+
+    /**
+     * Builds HTML elements from a JSON object, reporting to the given context.
+     */
+    public void buildElements(JSONObject json, StringBuilder html, int indentLevel, RenderContext context)
+            throws JSONException, LimitExceededException {
+        buildElements(OrgJsonNode.of(json), html, indentLevel, context);
+    }
+
+    /**
+     * Builds HTML elements from the members of a document object, reporting to the given context.
+     */
+    public void buildElements(JsonNode json, StringBuilder html, int indentLevel, RenderContext context)
+            throws LimitExceededException {
         if (json == null) return;
 
-        for (Iterator<String> it = json.keys(); it.hasNext();) {
-            String tagName = it.next();
-            Object value = json.get(tagName);
-            buildTag(tagName, value, html, indentLevel);
+        for (int i = 0; i < json.size(); i++) {
+            buildTag(json.key(i), json.value(i), html, indentLevel, context);
         }
     }
 
-    public void buildBodyElements(JSONObject body, StringBuilder html, int indentLevel) throws JSONException {
+    public void buildBodyElements(JSONObject body, StringBuilder html, int indentLevel)
+            throws JSONException, LimitExceededException {
+        buildBodyElements(body, html, indentLevel, RenderContext.untracked());
+    }
+
+    public void buildBodyElements(JSONObject body, StringBuilder html, int indentLevel, RenderContext context)
+            throws JSONException, LimitExceededException {
+        buildBodyElements(OrgJsonNode.of(body), html, indentLevel, context);
+    }
+
+    public void buildBodyElements(JsonNode body, StringBuilder html, int indentLevel, RenderContext context)
+            throws LimitExceededException {
         if (body == null) return;
 
-        Set<String> processedKeys = new HashSet<>();
+        int[] order = orderBodyMembers(body);
+        buildChildren(order.length, (i, out, outContext) -> {
+            int member = order[i];
+            buildTag(body.key(member), body.value(member), out, indentLevel, outContext);
+        }, html, context);
+    }
 
-        // Process elements in semantic order
-        for (String tagName : BODY_ELEMENT_ORDER) {
-            if (body.has(tagName) && isReservedKey(tagName)) {
-                buildTag(tagName, body.get(tagName), html, indentLevel);
-                processedKeys.add(tagName);
+    /**
+     * Returns the element keys of a body object in the order they are rendered.
+     * Known elements come first in semantic order, followed by the remaining keys.
+     */
+    public List<String> orderBodyElements(JSONObject body) {
+        JsonNode node = OrgJsonNode.of(body);
+        int[] order = orderBodyMembers(node);
+        List<String> ordered = new ArrayList<>(order.length);
+        for (int member : order) {
+            ordered.add(node.key(member));
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the indexes of a body object's element members in the order they are rendered.
+     * Known elements come first in semantic order, followed by the remaining members in
+     * document order. Repeated keys, which native documents allow, keep their relative order.
+     */
+    public int[] orderBodyMembers(JsonNode body) {
+        int size = body.size();
+        int[] buckets = new int[size];
+        // One bucket per semantic position, then one for all other elements
+        int[] bucketStarts = new int[TagDescriptor.BODY_ORDER_SIZE + 2];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+            String tagName = body.key(i);
+            if (!isReservedKey(tagName)) {
+                buckets[i] = -1;
+                continue;
             }
+            int position = TagDescriptor.of(tagName).bodyOrder();
+            buckets[i] = position >= 0 ? position : TagDescriptor.BODY_ORDER_SIZE;
+            bucketStarts[buckets[i] + 1]++;
+            count++;
+        }
+        for (int bucket = 1; bucket < bucketStarts.length; bucket++) {
+            bucketStarts[bucket] += bucketStarts[bucket - 1];
         }
 
-        // Process remaining elements
-        for (Iterator<String> it = body.keys(); it.hasNext();) {
-            String tagName = it.next();
-            if (!processedKeys.contains(tagName) && isReservedKey(tagName)) {
-                buildTag(tagName, body.get(tagName), html, indentLevel);
+        int[] order = new int[count];
+        for (int i = 0; i < size; i++) {
+            if (buckets[i] >= 0) {
+                order[bucketStarts[buckets[i]]++] = i;
             }
         }
+        return order;
     }
 
 
-    public void buildTag(String tagName, Object value, StringBuilder html, int indentLevel) throws JSONException {
-        if (tagName == null || value == null) return;
+    public void buildTag(String tagName, Object value, StringBuilder html, int indentLevel)
+            throws JSONException, LimitExceededException {
+        buildTag(tagName, value, html, indentLevel, RenderContext.untracked());
+    }
 
-        String indent = HtmlUtils.createIndent(indentLevel);
+    /**
+     * Builds the element for an org.json value.
+     */
+    public void buildTag(String tagName, Object value, StringBuilder html, int indentLevel, RenderContext context)
+            throws JSONException, LimitExceededException {
+        buildTag(tagName, OrgJsonNode.of(value), html, indentLevel, context);
+    }
+
+    /**
+     * Builds the element for a document value. Strings become text elements, objects become
+     * elements with attributes and children, and arrays repeat the tag once per item.
+     */
+    public void buildTag(String tagName, JsonNode value, StringBuilder html, int indentLevel, RenderContext context)
+            throws LimitExceededException {
+        if (tagName == null || value == null) return;
 
-        if (value instanceof String) {
-            buildSimpleTag(tagName, (String) value, html, indent);
-        } else if (value instanceof JSONObject) {
-            buildObjectTag(tagName, (JSONObject) value, html, indent, indentLevel);
-        } else if (value instanceof JSONArray) {
-            buildArrayTags(tagName, (JSONArray) value, html, indentLevel);
+        if (traversal == Traversal.ITERATIVE) {
+            buildTagIteratively(TagDescriptor.of(tagName), value, html, indentLevel, context);
         } else {
-            LOGGER.warning("Unsupported value type for tag '" + tagName + "': " + value.getClass());
+            buildTag(TagDescriptor.of(tagName), value, html, indentLevel, context);
+        }
+    }
+
+    private void buildTag(TagDescriptor tag, JsonNode value, StringBuilder html, int indentLevel,
+                          RenderContext context) throws LimitExceededException {
+        if (indentLevel >= MAX_RECURSIVE_DEPTH) {
+            buildTagIteratively(tag, value, html, indentLevel, context);
+            return;
+        }
+        SubtreeMemo memo = memo(value, context);
+        if (memo != null && memo.reuse(tag, value, indentLevel, html)) {
+            return;
+        }
+        int start = html.length();
+        String indent = format.indent(indentLevel);
+
+        switch (value.type()) {
+            case STRING -> buildSimpleTag(tag, value, html, indent, indentLevel, context);
+            case OBJECT -> buildObjectTag(tag, value, html, indent, indentLevel, context);
+            case ARRAY -> buildArrayTags(tag, value, html, indentLevel, context);
+            default -> Log.LOGGER.warning("Unsupported value type for tag '" + tag.name() + "': " + value.type());
+        }
+        if (memo != null) {
+            memo.offer(tag, value, indentLevel, html, start);
+        }
+        context.output(html.length());
+    }
+
+    /**
+     * @return the memo of this rendering if this builder memoizes and the value is a subtree
+     *         it may keep, otherwise null
+     */
+    private SubtreeMemo memo(JsonNode value, RenderContext context) {
+        if (memoEntries == 0 || context.isTracking() || !(value.isObject() || value.isArray())) {
+            return null;
+        }
+        return context.memo(format, memoEntries, memoChars);
+    }
+
+    /**
+     * A tag waiting on the explicit stack of an iterative walk.
+     */
+    private record PendingTag(TagDescriptor tag, JsonNode value, int indentLevel) {
+    }
+
+    /**
+     * Builds the same markup as {@link #buildTag(TagDescriptor, JsonNode, StringBuilder, int, RenderContext)},
+     * keeping the tags still to be written on a heap stack instead of the call stack. Closing
+     * tags are pushed as plain strings below the children of their element.
+     */
+    private void buildTagIteratively(TagDescriptor root, JsonNode rootValue, StringBuilder html, int rootIndentLevel,
+                                     RenderContext context) throws LimitExceededException {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(new PendingTag(root, rootValue, rootIndentLevel));
+
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                html.append((String) next);
+                continue;
+            }
+
+            PendingTag item = (PendingTag) next;
+            TagDescriptor tag = item.tag();
+            JsonNode value = item.value();
+            int indentLevel = item.indentLevel();
+            String indent = format.indent(indentLevel);
+
+            switch (value.type()) {
+                case STRING -> buildSimpleTag(tag, value, html, indent, indentLevel, context);
+                case OBJECT -> {
+                    if (tag.isMeta() || tag.isSelfClosing()) {
+                        // Leaf tags have no children to walk
+                        buildObjectTag(tag, value, html, indent, indentLevel, context);
+                        break;
+                    }
+                    context.element(tag.name(), indentLevel);
+                    html.append(indent).append(tag.openTagStart());
+                    HtmlUtils.formatAttributes(value.optObject("attributes"), html, context.metrics());
+                    html.append(">").append(format.lineEnd());
+                    pending.push(indent + tag.closeTag() + format.lineEnd());
+
+                    for (int i = value.size() - 1; i >= 0; i--) {
+                        String childKey = value.key(i);
+                        if (isReservedKey(childKey)) {
+                            pending.push(new PendingTag(TagDescriptor.of(childKey), value.value(i), indentLevel + 1));
+                        }
+                    }
+                }
+                case ARRAY -> {
+                    context.array(value.size());
+                    for (int i = value.size() - 1; i >= 0; i--) {
+                        pending.push(new PendingTag(tag, value.value(i), indentLevel));
+                    }
+                }
+                default -> Log.LOGGER.warning("Unsupported value type for tag '" + tag.name() + "': " + value.type());
+            }
+            context.output(html.length());
         }
     }
 
-    private void buildSimpleTag(String tagName, String content, StringBuilder html, String indent) {
-        html.append(indent)
-                .append("<").append(tagName).append(">")
-                .append(HtmlUtils.escapeContent(content))
-                .append("</").append(tagName).append(">\n");
+    private void buildSimpleTag(TagDescriptor tag, JsonNode content, StringBuilder html, String indent,
+                                int indentLevel, RenderContext context) throws LimitExceededException {
+        html.append(indent).append(tag.openTag());
+        context.escape(HtmlUtils.escapeContent(content, html));
+        html.append(tag.closeTag()).append(format.lineEnd());
+        context.element(tag.name(), indentLevel);
     }
 
-    private void buildObjectTag(String tagName, JSONObject obj, StringBuilder html, String indent, int indentLevel)
-            throws JSONException {
+    private void buildObjectTag(TagDescriptor tag, JsonNode obj, StringBuilder html, String indent, int indentLevel,
+                                RenderContext context) throws LimitExceededException {
 
 
-        if ("meta".equalsIgnoreCase(tagName)) {
-            buildMetaTags(obj, html, indentLevel);
+        if (tag.isMeta()) {
+            buildMetaTags(obj, html, indent, indentLevel, context);
             return;
         }
 
-        String attributes = HtmlUtils.formatAttributes(obj.optJSONObject("attributes"));
+        context.element(tag.name(), indentLevel);
 
-        if (SelfClosingTag.contains(tagName)) {
+        if (tag.isSelfClosing()) {
             // For self-closing tags, treat all properties as attributes if no explicit attributes
-            if (!obj.has("attributes")) {
-                attributes = HtmlUtils.formatAttributes(obj);
-            }
-            html.append(indent).append("<").append(tagName).append(attributes).append(">\n");
+            JsonNode attributes = obj.get("attributes") != null ? obj.optObject("attributes") : obj;
+            html.append(indent).append(tag.openTagStart());
+            HtmlUtils.formatAttributes(attributes, html, context.metrics());
+            html.append(">").append(format.lineEnd());
         } else {
             // Regular container tag
-            html.append(indent).append("<").append(tagName).append(attributes).append(">\n");
+            html.append(indent).append(tag.openTagStart());
+            HtmlUtils.formatAttributes(obj.optObject("attributes"), html, context.metrics());
+            html.append(">").append(format.lineEnd());
 
             // Build child elements
-            for (Iterator<String> it = obj.keys(); it.hasNext();) {
-                String childKey = it.next();
-                if (isReservedKey(childKey)) {
-                    buildTag(childKey, obj.get(childKey), html, indentLevel + 1);
+            int size = obj.size();
+            if (size < parallelThreshold) {
+                for (int i = 0; i < size; i++) {
+                    String childKey = obj.key(i);
+                    if (isReservedKey(childKey)) {
+                        buildTag(childKey, obj.value(i), html, indentLevel + 1, context);
+                    }
+                }
+            } else {
+                int[] children = new int[size];
+                int childCount = 0;
+                for (int i = 0; i < size; i++) {
+                    if (isReservedKey(obj.key(i))) {
+                        children[childCount++] = i;
+                    }
                 }
+                buildChildren(childCount, (i, out, outContext) -> {
+                    int member = children[i];
+                    buildTag(obj.key(member), obj.value(member), out, indentLevel + 1, outContext);
+                }, html, context);
             }
 
-            html.append(indent).append("</").append(tagName).append(">\n");
+            html.append(indent).append(tag.closeTag()).append(format.lineEnd());
         }
     }
 
-    private void buildArrayTags(String tagName, JSONArray array, StringBuilder html, int indentLevel)
-            throws JSONException {
-        for (int i = 0; i < array.length(); i++) {
-            buildTag(tagName, array.get(i), html, indentLevel);
+    private void buildArrayTags(TagDescriptor tag, JsonNode array, StringBuilder html, int indentLevel,
+                                RenderContext context) throws LimitExceededException {
+        context.array(array.size());
+        buildChildren(array.size(), (i, out, outContext) -> {
+            JsonNode item = array.value(i);
+            if (item.isArray()) {
+                // Nested arrays keep the indentation, so they would never reach the depth switch
+                buildTagIteratively(tag, item, out, indentLevel, outContext);
+            } else {
+                buildTag(tag, item, out, indentLevel, outContext);
+            }
+        }, html, context);
+    }
+
+    /**
+     * Builds one sibling element into the given buffer, tracked by the given context.
+     */
+    @FunctionalInterface
+    private interface Child {
+        void build(int index, StringBuilder html, RenderContext context) throws LimitExceededException;
+    }
+
+    /**
+     * Builds siblings in order, splitting them across the pool when there are enough of them.
+     */
+    private void buildChildren(int count, Child child, StringBuilder html, RenderContext context)
+            throws LimitExceededException {
+        if (count < parallelThreshold || !context.isSplittable()) {
+            for (int i = 0; i < count; i++) {
+                child.build(i, html, context);
+            }
+            return;
+        }
+
+        int chunkCount = pool.getParallelism() * 4;
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (count + chunkCount - 1) / chunkCount);
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int from = 0; from < count; from += chunkSize) {
+            tasks.add(new ChunkTask(child, from, Math.min(count, from + chunkSize), context.fork()));
+        }
+
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+
+        // Join in document order. A chunk only sees its own elements and output, so one that failed
+        // or that takes the document past a limit is rendered again in place, which raises
+        // exactly the failure, at exactly the element, that a sequential build would.
+        for (ChunkTask task : tasks) {
+            if (task.error == null && context.admits(task.context.elementCount(), html.length() + task.html.length())) {
+                context.countRendered(task.context.elementCount());
+                html.append(task.html);
+            } else {
+                for (int i = task.from; i < task.to; i++) {
+                    child.build(i, html, context);
+                }
+            }
         }
     }
 
-    private void buildMetaTags(JSONObject metaObj, StringBuilder html, int indentLevel) throws JSONException {
-        String indent = HtmlUtils.createIndent(indentLevel);
+    /**
+     * Renders a contiguous range of siblings into its own buffer. Tasks are never serialized;
+     * ForkJoinTask is Serializable only by inheritance.
+     */
+    @SuppressWarnings("serial")
+    private static final class ChunkTask extends RecursiveAction {
+        private final Child child;
+        private final int from;
+        private final int to;
+        private final RenderContext context;
+        private final StringBuilder html = new StringBuilder();
+        private Exception error;
+
+        ChunkTask(Child child, int from, int to, RenderContext context) {
+            this.child = child;
+            this.from = from;
+            this.to = to;
+            this.context = context;
+        }
 
-        for (Iterator<String> it = metaObj.keys(); it.hasNext();) {
-            String attributeName = it.next();
-            Object value = metaObj.get(attributeName);
+        @Override
+        protected void compute() {
+            try {
+                for (int i = from; i < to; i++) {
+                    child.build(i, html, context);
+                }
+            } catch (RuntimeException | LimitExceededException e) {
+                // The joining thread renders the chunk again, so the exception reaches the caller from there
+                error = e;
+            }
+        }
+    }
 
-            if (value instanceof String) {
+    private void buildMetaTags(JsonNode metaObj, StringBuilder html, String indent, int indentLevel,
+                               RenderContext context) throws LimitExceededException {
+        for (int i = 0; i < metaObj.size(); i++) {
+            String attributeName = metaObj.key(i);
+            JsonNode value = metaObj.value(i);
+
+            if (value.isString()) {
                 // Simple attribute like charset
-                html.append(indent)
-                        .append("<meta ").append(attributeName).append("=\"")
-                        .append(HtmlUtils.escapeAttribute(value.toString())).append("\">\n");
-            } else if (value instanceof JSONObject) {
+                html.append(indent).append("<meta ").append(attributeName).append("=\"");
+                context.escape(HtmlUtils.escapeAttribute(value, html));
+                html.append("\">").append(format.lineEnd());
+                context.element("meta", indentLevel);
+            } else if (value.isObject()) {
                 // Complex attribute like viewport
-                String content = buildMetaContent((JSONObject) value);
-                html.append(indent)
-                        .append("<meta name=\"").append(attributeName)
-                        .append("\" content=\"").append(HtmlUtils.escapeAttribute(content)).append("\">\n");
+                html.append(indent).append("<meta name=\"").append(attributeName).append("\" content=\"");
+                buildMetaContent(value, html, context);
+                html.append("\">").append(format.lineEnd());
+                context.element("meta", indentLevel);
             }
         }
     }
 
-    private String buildMetaContent(JSONObject contentObj) throws JSONException {
-        StringBuilder content = new StringBuilder();
-        for (Iterator<String> it = contentObj.keys(); it.hasNext();) {
-            String key = it.next();
-            String value = contentObj.getString(key);
+    /**
+     * Writes the escaped "key=value, ..." content of a complex meta tag.
+     * The separators need no escaping, so each part is escaped on its own.
+     */
+    private void buildMetaContent(JsonNode contentObj, StringBuilder html, RenderContext context) {
+        for (int i = 0; i < contentObj.size(); i++) {
+            String key = contentObj.key(i);
+            JsonNode value = contentObj.value(i);
+            if (!value.isString()) {
+                // Fails with the model's own type error
+                contentObj.string(i);
+            }
 
-            if (content.length() > 0) {
-                content.append(", ");
+            if (i > 0) {
+                html.append(", ");
             }
-            content.append(key).append("=").append(value);
+            context.escape(HtmlUtils.escapeAttribute(key, html));
+            html.append("=");
+            context.escape(HtmlUtils.escapeAttribute(value, html));
         }
-        return content.toString();
     }
 
     private boolean isReservedKey(String key) {
         return !"attributes".equals(key);
     }
-}
\ No newline at end of file
+}
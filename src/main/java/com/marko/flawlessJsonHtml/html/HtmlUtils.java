@@ -1,27 +1,42 @@
 package com.marko.flawlessJsonHtml.html;
 
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.JsonSlice;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
 import org.json.JSONException;
 import org.json.JSONObject;
-import java.util.Iterator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * Utility class for HTML-related operations.
  */
 public final class HtmlUtils {
 
+    // Indentation strings shared by all elements up to this depth
+    private static final String[] INDENTS = new String[32];
+
+    static {
+        for (int i = 0; i < INDENTS.length; i++) {
+            INDENTS[i] = "\t".repeat(i);
+        }
+    }
+
     private HtmlUtils() {
         // Utility class - prevent instantiation
     }
 
     /**
-     * Creates indentation string with tabs.
+     * Creates indentation string with tabs. Common depths return a shared precomputed string.
      *
      * @param level indentation level
      * @return indentation string
      */
     public static String createIndent(int level) {
         if (level <= 0) return "";
-        return "\t".repeat(level);
+        return level < INDENTS.length ? INDENTS[level] : "\t".repeat(level);
     }
 
     /**
@@ -37,73 +52,354 @@ public final class HtmlUtils {
         }
 
         StringBuilder result = new StringBuilder();
-        Iterator<String> keys = attrs.keys();
+        formatAttributes(attrs, result);
+        return result.toString();
+    }
+
+    /**
+     * Writes JSON object as HTML attributes directly into the given builder.
+     *
+     * @param attrs JSON object containing attributes, may be null
+     * @param out destination
+     * @throws JSONException if JSON processing fails
+     */
+    public static void formatAttributes(JSONObject attrs, StringBuilder out) throws JSONException {
+        formatAttributes(attrs, out, ConversionMetrics.NOOP);
+    }
 
-        while (keys.hasNext()) {
-            String key = keys.next();
-            Object value = attrs.get(key);
+    /**
+     * Appends JSON object as HTML attributes to the given builder, reporting each escaped value.
+     *
+     * @param attrs JSON object containing attributes, may be null
+     * @param out destination
+     * @param metrics receives one escape record per attribute value
+     * @throws JSONException if JSON processing fails
+     */
+    public static void formatAttributes(JSONObject attrs, StringBuilder out, ConversionMetrics metrics)
+            throws JSONException {
+        try {
+            formatAttributes(attrs, (Appendable) out, metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes JSON object as HTML attributes directly into the given sink.
+     *
+     * @param attrs JSON object containing attributes, may be null
+     * @param out destination
+     * @throws JSONException if JSON processing fails
+     * @throws IOException if the sink fails
+     */
+    public static void formatAttributes(JSONObject attrs, Appendable out) throws JSONException, IOException {
+        formatAttributes(attrs, out, ConversionMetrics.NOOP);
+    }
+
+    /**
+     * Writes JSON object as HTML attributes directly into the given sink, reporting each escaped value.
+     *
+     * @param attrs JSON object containing attributes, may be null
+     * @param out destination
+     * @param metrics receives one escape record per attribute value
+     * @throws JSONException if JSON processing fails
+     * @throws IOException if the sink fails
+     */
+    public static void formatAttributes(JSONObject attrs, Appendable out, ConversionMetrics metrics)
+            throws JSONException, IOException {
+        formatAttributes(OrgJsonNode.of(attrs), out, metrics);
+    }
 
-            if (value instanceof JSONObject && "style".equals(key)) {
-                String styleValue = formatStyleAttribute((JSONObject) value);
-                if (!styleValue.isEmpty()) {
-                    result.append(" ").append(key).append("=\"").append(styleValue).append("\"");
+    /**
+     * Appends a document object as HTML attributes to the given builder, reporting each escaped value.
+     *
+     * @param attrs object containing attributes, may be null
+     * @param out destination
+     * @param metrics receives one escape record per attribute value
+     */
+    public static void formatAttributes(JsonNode attrs, StringBuilder out, ConversionMetrics metrics) {
+        try {
+            formatAttributes(attrs, (Appendable) out, metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a document object as HTML attributes directly into the given sink, reporting each escaped value.
+     *
+     * @param attrs object containing attributes, may be null
+     * @param out destination
+     * @param metrics receives one escape record per attribute value
+     * @throws IOException if the sink fails
+     */
+    public static void formatAttributes(JsonNode attrs, Appendable out, ConversionMetrics metrics)
+            throws IOException {
+        if (attrs == null || attrs.size() == 0) {
+            return;
+        }
+
+        for (int i = 0; i < attrs.size(); i++) {
+            String key = attrs.key(i);
+            JsonNode value = attrs.value(i);
+
+            if (value.isObject() && "style".equals(key)) {
+                if (value.size() > 0) {
+                    out.append(" ").append(key).append("=\"");
+                    formatStyleAttribute(value, out);
+                    out.append("\"");
+                }
+            } else {
+                out.append(" ").append(key).append("=\"");
+                boolean changed = escapeAttribute(value, out);
+                out.append("\"");
+                if (metrics.isEnabled()) {
+                    metrics.recordEscape(changed);
                 }
-            } else if (value != null) {
-                result.append(" ").append(key).append("=\"")
-                        .append(escapeAttribute(value.toString())).append("\"");
             }
         }
-
-        return result.toString();
     }
 
     /**
      * Formats a style object as CSS string.
      */
-    private static String formatStyleAttribute(JSONObject styleObj) throws JSONException {
+    public static String formatStyleAttribute(JSONObject styleObj) throws JSONException {
         StringBuilder style = new StringBuilder();
-        Iterator<String> styleKeys = styleObj.keys();
+        try {
+            formatStyleAttribute(styleObj, style);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return style.toString();
+    }
 
-        while (styleKeys.hasNext()) {
-            String styleKey = styleKeys.next();
-            String styleValue = styleObj.getString(styleKey);
+    /**
+     * Writes a style object as CSS declarations directly into the given sink.
+     */
+    public static void formatStyleAttribute(JSONObject styleObj, Appendable out) throws JSONException, IOException {
+        formatStyleAttribute(OrgJsonNode.of(styleObj), out);
+    }
 
-            if (style.length() > 0) {
-                style.append(" ");
+    /**
+     * Writes a document style object as CSS declarations directly into the given sink.
+     */
+    public static void formatStyleAttribute(JsonNode styleObj, Appendable out) throws IOException {
+        for (int i = 0; i < styleObj.size(); i++) {
+            String styleKey = styleObj.key(i);
+            String styleValue = styleObj.string(i);
+
+            if (i > 0) {
+                out.append(" ");
             }
-            style.append(styleKey).append(": ").append(styleValue).append(";");
+            out.append(styleKey).append(": ").append(styleValue).append(";");
         }
-
-        return style.toString();
     }
 
     /**
      * Escapes HTML content (text between tags).
      *
      * @param content content to escape
-     * @return escaped content
+     * @return escaped content, or the same instance if nothing needs escaping
      */
     public static String escapeContent(String content) {
         if (content == null) return "";
 
-        return content.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;");
+        int first = indexOfSpecial(content, false);
+        if (first < 0) return content;
+
+        StringBuilder escaped = new StringBuilder(content.length() + 16);
+        appendEscaped(content, first, escaped, false);
+        return escaped.toString();
+    }
+
+    /**
+     * Escapes HTML content directly into the given builder.
+     *
+     * @param content content to escape, null is treated as empty
+     * @param out destination
+     * @return whether any character had to be replaced
+     */
+    public static boolean escapeContent(CharSequence content, StringBuilder out) {
+        if (content == null) return false;
+        return appendEscaped(content, 0, out, false);
+    }
+
+    /**
+     * Escapes HTML content directly into the given sink.
+     *
+     * @param content content to escape, null is treated as empty
+     * @param out destination
+     * @return whether any character had to be replaced
+     * @throws IOException if the sink fails
+     */
+    public static boolean escapeContent(CharSequence content, Appendable out) throws IOException {
+        if (content == null) return false;
+        return appendEscaped(content, 0, out, false);
     }
 
     /**
      * Escapes HTML attribute values.
      *
      * @param attribute attribute value to escape
-     * @return escaped attribute value
+     * @return escaped attribute value, or the same instance if nothing needs escaping
      */
     public static String escapeAttribute(String attribute) {
         if (attribute == null) return "";
 
-        return attribute.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+        int first = indexOfSpecial(attribute, true);
+        if (first < 0) return attribute;
+
+        StringBuilder escaped = new StringBuilder(attribute.length() + 16);
+        appendEscaped(attribute, first, escaped, true);
+        return escaped.toString();
+    }
+
+    /**
+     * Escapes an HTML attribute value directly into the given builder.
+     *
+     * @param attribute attribute value to escape, null is treated as empty
+     * @param out destination
+     * @return whether any character had to be replaced
+     */
+    public static boolean escapeAttribute(CharSequence attribute, StringBuilder out) {
+        if (attribute == null) return false;
+        return appendEscaped(attribute, 0, out, true);
+    }
+
+    /**
+     * Escapes an HTML attribute value directly into the given sink.
+     *
+     * @param attribute attribute value to escape, null is treated as empty
+     * @param out destination
+     * @return whether any character had to be replaced
+     * @throws IOException if the sink fails
+     */
+    public static boolean escapeAttribute(CharSequence attribute, Appendable out) throws IOException {
+        if (attribute == null) return false;
+        return appendEscaped(attribute, 0, out, true);
+    }
+
+    /**
+     * Escapes the content of a document value directly into the given builder. Values that
+     * still hold their JSON source are unescaped and escaped in a single pass.
+     *
+     * @param value string or scalar value
+     * @param out destination
+     * @return whether any character had to be replaced
+     */
+    public static boolean escapeContent(JsonNode value, StringBuilder out) {
+        JsonSlice slice = value.slice();
+        return slice != null ? appendJsonEscaped(slice, out, false) : escapeContent(value.text(), out);
+    }
+
+    /**
+     * Escapes a document value as an HTML attribute value directly into the given builder.
+     *
+     * @see #escapeContent(JsonNode, StringBuilder)
+     */
+    public static boolean escapeAttribute(JsonNode value, StringBuilder out) {
+        JsonSlice slice = value.slice();
+        return slice != null ? appendJsonEscaped(slice, out, true) : escapeAttribute(value.text(), out);
+    }
+
+    /**
+     * Escapes a document value as an HTML attribute value directly into the given sink.
+     *
+     * @throws IOException if the sink fails
+     * @see #escapeContent(JsonNode, StringBuilder)
+     */
+    public static boolean escapeAttribute(JsonNode value, Appendable out) throws IOException {
+        JsonSlice slice = value.slice();
+        return slice != null ? appendJsonEscaped(slice, out, true) : escapeAttribute(value.text(), out);
+    }
+
+    private static int indexOfSpecial(CharSequence text, boolean attribute) {
+        for (int i = 0; i < text.length(); i++) {
+            if (replacement(text.charAt(i), attribute) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean appendEscaped(CharSequence text, int from, StringBuilder out, boolean attribute) {
+        try {
+            return appendEscaped(text, from, (Appendable) out, attribute);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies text to the sink in runs, replacing special characters as they are found.
+     * Characters before {@code from} are known to need no escaping.
+     *
+     * @return whether any character was replaced
+     */
+    private static boolean appendEscaped(CharSequence text, int from, Appendable out, boolean attribute)
+            throws IOException {
+        int runStart = 0;
+        for (int i = from; i < text.length(); i++) {
+            String replacement = replacement(text.charAt(i), attribute);
+            if (replacement != null) {
+                out.append(text, runStart, i).append(replacement);
+                runStart = i + 1;
+            }
+        }
+        out.append(text, runStart, text.length());
+        return runStart > 0;
+    }
+
+    private static boolean appendJsonEscaped(JsonSlice slice, StringBuilder out, boolean attribute) {
+        try {
+            return appendJsonEscaped(slice, (Appendable) out, attribute);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes JSON escapes and replaces special HTML characters in one pass, copying
+     * untouched runs of the source straight to the sink.
+     *
+     * @return whether any character was replaced
+     */
+    private static boolean appendJsonEscaped(JsonSlice slice, Appendable out, boolean attribute) throws IOException {
+        String source = slice.source();
+        int end = slice.end();
+        int runStart = slice.start();
+        boolean replaced = false;
+        int i = runStart;
+        while (i < end) {
+            char c = source.charAt(i);
+            int length = 1;
+            if (c == '\\') {
+                c = JsonSlice.unescape(source, i);
+                length = JsonSlice.escapeLength(source, i);
+            }
+            String replacement = replacement(c, attribute);
+            if (replacement != null) {
+                out.append(source, runStart, i).append(replacement);
+                runStart = i + length;
+                replaced = true;
+            } else if (length > 1) {
+                out.append(source, runStart, i).append(c);
+                runStart = i + length;
+            }
+            i += length;
+        }
+        out.append(source, runStart, end);
+        return replaced;
+    }
+
+    private static String replacement(char c, boolean attribute) {
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> attribute ? "&quot;" : null;
+            case '\'' -> attribute ? "&#39;" : null;
+            default -> null;
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.marko.flawlessJsonHtml.html;
+
+/**
+ * Layout of the generated HTML.
+ */
+public enum OutputFormat {
+
+    /**
+     * One element per line, indented with tabs.
+     */
+    PRETTY,
+
+    /**
+     * No indentation or line breaks between elements; text content is left as is.
+     */
+    MINIFIED;
+
+    /**
+     * @return indentation for the given nesting level, empty when minified
+     */
+    public String indent(int level) {
+        return this == PRETTY ? HtmlUtils.createIndent(level) : "";
+    }
+
+    /**
+     * @return the separator written after each tag line, empty when minified
+     */
+    public String lineEnd() {
+        return this == PRETTY ? "\n" : "";
+    }
+}
@@ -0,0 +1,165 @@
+package com.marko.flawlessJsonHtml.html;
+
+import com.marko.flawlessJsonHtml.converter.ArrayTooLongException;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.converter.NestingTooDeepException;
+import com.marko.flawlessJsonHtml.converter.OutputTooLargeException;
+import com.marko.flawlessJsonHtml.converter.TooManyElementsException;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+
+/**
+ * Per-conversion state passed through the element builders.
+ * <p>
+ * {@link HtmlElementBuilder} itself is stateless and shared; everything that belongs to
+ * one document, such as its metrics sink, its limits and the fragments of a memoizing
+ * builder, travels in a context created for that document.
+ */
+public final class RenderContext {
+
+    private final ConversionMetrics metrics;
+    private final ConversionLimits limits;
+    private final boolean tracking;
+    private final boolean bounded;
+    private long elements;
+    private SubtreeMemo memo;
+
+    public RenderContext(ConversionMetrics metrics) {
+        this(metrics, ConversionLimits.UNLIMITED);
+    }
+
+    public RenderContext(ConversionMetrics metrics, ConversionLimits limits) {
+        if (metrics == null || limits == null) {
+            throw new IllegalArgumentException("Metrics and limits cannot be null");
+        }
+        this.metrics = metrics;
+        this.limits = limits;
+        this.bounded = limits.isBounded();
+        this.tracking = metrics.isEnabled() || bounded;
+    }
+
+    /**
+     * @return a context that records nothing
+     */
+    public static RenderContext untracked() {
+        return new RenderContext(ConversionMetrics.NOOP);
+    }
+
+    public ConversionMetrics metrics() {
+        return metrics;
+    }
+
+    public ConversionLimits limits() {
+        return limits;
+    }
+
+    /**
+     * @return whether anything is recorded or counted; such contexts must stay on one thread
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * @return whether siblings may be rendered on other threads, each tracked by its own
+     *         {@link #fork() fork} of this context; recorded metrics must stay on one thread
+     */
+    boolean isSplittable() {
+        return !metrics.isEnabled();
+    }
+
+    /**
+     * @return a context with the same limits and its own element count, for rendering a range
+     *         of siblings on another thread
+     */
+    RenderContext fork() {
+        return new RenderContext(ConversionMetrics.NOOP, limits);
+    }
+
+    /**
+     * @return whether this many more elements and a document of this length stay within the limits
+     */
+    boolean admits(long moreElements, long outputLength) {
+        return !bounded || (elements + moreElements <= limits.maxElements() && outputLength <= limits.maxOutputBytes());
+    }
+
+    /**
+     * @return the subtree memo of this rendering, created with the given bounds on first use
+     */
+    SubtreeMemo memo(OutputFormat format, int maxEntries, long maxChars) {
+        if (memo == null) {
+            memo = new SubtreeMemo(format, maxEntries, maxChars);
+        }
+        return memo;
+    }
+
+    /**
+     * Records an element written at the given depth.
+     *
+     * @throws LimitExceededException if the element is nested too deep or one too many
+     */
+    public void element(String tagName, int depth) throws LimitExceededException {
+        if (!tracking) {
+            return;
+        }
+        if (bounded) {
+            if (depth > limits.maxDepth()) {
+                throw new NestingTooDeepException(limits.maxDepth());
+            }
+            if (++elements > limits.maxElements()) {
+                throw new TooManyElementsException(limits.maxElements());
+            }
+        }
+        metrics.recordElement(tagName, depth);
+    }
+
+    /**
+     * @return number of elements counted against the element limit, zero without limits
+     */
+    public long elementCount() {
+        return elements;
+    }
+
+    /**
+     * Counts elements rendered by another context, such as a shared head, against the element
+     * limit without recording them again.
+     *
+     * @throws TooManyElementsException if they take the count past the limit
+     */
+    public void countRendered(long count) throws TooManyElementsException {
+        if (bounded && (elements += count) > limits.maxElements()) {
+            throw new TooManyElementsException(limits.maxElements());
+        }
+    }
+
+    /**
+     * Checks the length of an array before its items are rendered.
+     *
+     * @throws ArrayTooLongException if the array has too many items
+     */
+    public void array(int length) throws ArrayTooLongException {
+        if (bounded && length > limits.maxArrayLength()) {
+            throw new ArrayTooLongException(limits.maxArrayLength());
+        }
+    }
+
+    /**
+     * Checks how much output has been produced so far.
+     *
+     * @throws OutputTooLargeException if the output is too large
+     */
+    public void output(long length) throws OutputTooLargeException {
+        if (bounded && length > limits.maxOutputBytes()) {
+            throw new OutputTooLargeException(limits.maxOutputBytes());
+        }
+    }
+
+    /**
+     * Records an escaped value and whether escaping changed it.
+     */
+    public void escape(boolean changed) {
+        if (tracking) {
+            metrics.recordEscape(changed);
+        }
+    }
+}
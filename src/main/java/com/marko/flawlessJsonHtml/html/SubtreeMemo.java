@@ -0,0 +1,240 @@
+package com.marko.flawlessJsonHtml.html;
+
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.JsonSlice;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Markup of repeated subtrees within one rendering, for memoizing {@link HtmlElementBuilder}s.
+ * <p>
+ * A repeat is recognized without walking the subtree a second time. Models that keep the source
+ * text are matched on it: objects and arrays are looked up by their length and a sample of their
+ * characters, and a candidate counts as a repeat only if its whole text is equal, which also
+ * means equal content. Models without source text are matched by {@link JsonNode#identity()},
+ * which finds parts shared by reference, as in trees assembled from the same objects.
+ * <p>
+ * The first occurrence of a subtree is only noted; the second is rendered again and its markup
+ * kept, so content that never repeats is never copied. Later occurrences append the kept markup.
+ * Markup is kept as rendered at one indentation; reusing it at another level swaps the leading
+ * tabs of each line, which is only safe when no string in the subtree holds a line break. Such
+ * markup is reused at its own level only.
+ * <p>
+ * Bounded by entry count and kept characters; the least recently used entries are evicted first.
+ * Not thread-safe, one instance belongs to one rendering.
+ */
+final class SubtreeMemo {
+
+    /**
+     * Shortest source text worth an entry; smaller subtrees render about as fast as they are looked up.
+     */
+    private static final int MIN_SOURCE_CHARS = 128;
+
+    /**
+     * Characters of the source text that go into a lookup key.
+     */
+    private static final int SAMPLE_SIZE = 32;
+
+    /**
+     * Most distinct subtrees kept under one key; further ones with the same key are not memoized.
+     */
+    private static final int MAX_CANDIDATES = 4;
+
+    private record SourceKey(String tagName, int length, int sample) {
+    }
+
+    private record IdentityKey(String tagName, Object identity) {
+    }
+
+    /**
+     * A subtree seen before, with its markup once it has occurred twice.
+     */
+    private static final class Entry {
+        private final JsonNode value;
+        private final Entry next;
+        private int indentLevel;
+        private boolean multiline;
+        private String html;
+
+        Entry(JsonNode value, Entry next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private final OutputFormat format;
+    private final int maxEntries;
+    private final long maxChars;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long keptChars;
+
+    SubtreeMemo(OutputFormat format, int maxEntries, long maxChars) {
+        this.format = format;
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Appends the kept markup of an equal subtree rendered under the same tag, if there is one
+     * that fits the indentation.
+     *
+     * @return whether the markup was appended; if not, the caller renders the value itself
+     */
+    boolean reuse(TagDescriptor tag, JsonNode value, int indentLevel, StringBuilder html) {
+        Object key = key(tag, value);
+        Entry entry = key != null ? find(entries.get(key), value) : null;
+        if (entry == null || entry.html == null) {
+            return false;
+        }
+
+        if (entry.indentLevel == indentLevel || format != OutputFormat.PRETTY) {
+            html.append(entry.html);
+        } else if (!entry.multiline) {
+            reindent(entry, indentLevel, html);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Notes a value the caller just rendered, and keeps its markup if the value was seen before.
+     *
+     * @param start index in the output where the markup of the value begins
+     */
+    void offer(TagDescriptor tag, JsonNode value, int indentLevel, StringBuilder html, int start) {
+        Object key = key(tag, value);
+        if (key == null) {
+            return;
+        }
+        Entry first = entries.get(key);
+        Entry entry = find(first, value);
+        if (entry == null) {
+            if (count(first) < MAX_CANDIDATES) {
+                entries.put(key, new Entry(value, first));
+                evict();
+            }
+            return;
+        }
+        int length = html.length() - start;
+        if (entry.html != null || length > maxChars) {
+            // Kept at another level it cannot be moved to, or too large to keep
+            return;
+        }
+
+        entry.indentLevel = indentLevel;
+        entry.multiline = format == OutputFormat.PRETTY && hasLineBreak(value);
+        entry.html = html.substring(start);
+        keptChars += length;
+        evict();
+    }
+
+    private Object key(TagDescriptor tag, JsonNode value) {
+        JsonSlice source = value.source();
+        if (source == null) {
+            return new IdentityKey(tag.name(), value.identity());
+        }
+        int length = source.end() - source.start();
+        if (length < MIN_SOURCE_CHARS) {
+            return null;
+        }
+        String text = source.source();
+        int stride = length / SAMPLE_SIZE;
+        int sample = 0;
+        for (int i = source.start(); i < source.end(); i += stride) {
+            sample = 31 * sample + text.charAt(i);
+        }
+        return new SourceKey(tag.name(), length, sample);
+    }
+
+    private static Entry find(Entry entry, JsonNode value) {
+        for (; entry != null; entry = entry.next) {
+            if (sameValue(entry.value, value)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static int count(Entry entry) {
+        int count = 0;
+        for (; entry != null; entry = entry.next) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean sameValue(JsonNode a, JsonNode b) {
+        JsonSlice first = a.source();
+        if (first == null) {
+            return a.identity().equals(b.identity());
+        }
+        JsonSlice second = b.source();
+        int length = first.end() - first.start();
+        return second != null && second.end() - second.start() == length
+                && first.source().regionMatches(first.start(), second.source(), second.start(), length);
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || keptChars > maxChars) {
+            for (Entry entry = eldest.next(); entry != null; entry = entry.next) {
+                if (entry.html != null) {
+                    keptChars -= entry.html.length();
+                }
+            }
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Appends kept markup with the tabs it was rendered with at the start of each line replaced
+     * by those of the given level.
+     */
+    private void reindent(Entry entry, int indentLevel, StringBuilder html) {
+        String markup = entry.html;
+        String indent = format.indent(indentLevel);
+        int line = 0;
+        while (line < markup.length()) {
+            int end = markup.indexOf('\n', line) + 1;
+            if (end == 0) {
+                end = markup.length();
+            }
+            html.append(indent).append(markup, line + entry.indentLevel, end);
+            line = end;
+        }
+    }
+
+    /**
+     * Checks whether any key or string below a value holds a line break. Source text is only
+     * scanned for escapes that could decode to one, which may report a break that is not there.
+     */
+    private static boolean hasLineBreak(JsonNode value) {
+        JsonSlice source = value.source();
+        if (source != null) {
+            String text = source.source();
+            for (int i = text.indexOf('\\', source.start()); i >= 0 && i < source.end() - 1;
+                 i = text.indexOf('\\', i + 2)) {
+                char escape = text.charAt(i + 1);
+                if (escape == 'n' || escape == 'u') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int i = 0; i < value.size(); i++) {
+            if (value.isObject() && value.key(i).indexOf('\n') >= 0) {
+                return true;
+            }
+            JsonNode member = value.value(i);
+            if (member.isObject() || member.isArray()
+                    ? hasLineBreak(member)
+                    : member.isString() && member.text().indexOf('\n') >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+package com.marko.flawlessJsonHtml.html;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned metadata of one tag name.
+ * <p>
+ * Whether a tag is a void element, where it sorts among body elements and its open and
+ * close tokens are worked out once per distinct name, so rendering an element does no
+ * case folding, set lookups or string concatenation.
+ */
+public final class TagDescriptor {
+
+    private enum SelfClosingTag {
+        META("meta"), LINK("link"), IMG("img"), BR("br"),
+        HR("hr"), INPUT("input"), SOURCE("source"),
+        TRACK("track"), WBR("wbr");
+
+        private final String tagName;
+        // A plain loop rather than a stream: this runs on every startup, where a stream
+        // pipeline costs more in lambda bootstrapping than the lookup it builds
+        private static final Set<String> TAG_NAMES = new HashSet<>();
+
+        static {
+            for (SelfClosingTag tag : values()) {
+                TAG_NAMES.add(tag.tagName);
+            }
+        }
+
+        SelfClosingTag(String tagName) {
+            this.tagName = tagName;
+        }
+
+        public static boolean contains(String tagName) {
+            return TAG_NAMES.contains(tagName.toLowerCase());
+        }
+    }
+
+    private static final List<String> BODY_ELEMENT_ORDER = Arrays.asList(
+            "header", "nav", "main", "section", "article", "aside", "footer",
+            "h1", "h2", "h3", "h4", "h5", "h6",
+            "p", "blockquote", "pre", "code",
+            "ul", "ol", "li", "dl", "dt", "dd",
+            "div", "span", "a", "img", "video", "audio",
+            "form", "input", "button", "select", "textarea"
+    );
+
+    private static final Map<String, Integer> BODY_ORDER_POSITIONS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < BODY_ELEMENT_ORDER.size(); i++) {
+            BODY_ORDER_POSITIONS.put(BODY_ELEMENT_ORDER.get(i), i);
+        }
+    }
+
+    /**
+     * Number of tags with a fixed position among body elements.
+     */
+    public static final int BODY_ORDER_SIZE = BODY_ELEMENT_ORDER.size();
+
+    /**
+     * Tag names come from documents, so only this many are kept; rarer names get a fresh descriptor.
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    private static final Map<String, TagDescriptor> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final boolean selfClosing;
+    private final boolean meta;
+    private final int bodyOrder;
+    private final String openTag;
+    private final String openTagStart;
+    private final String closeTag;
+
+    private TagDescriptor(String name) {
+        this.name = name;
+        this.selfClosing = SelfClosingTag.contains(name);
+        this.meta = "meta".equalsIgnoreCase(name);
+        this.bodyOrder = BODY_ORDER_POSITIONS.getOrDefault(name, -1);
+        this.openTagStart = "<" + name;
+        this.openTag = openTagStart + ">";
+        this.closeTag = "</" + name + ">";
+    }
+
+    /**
+     * Returns the descriptor of a tag name, creating and interning it on first use.
+     *
+     * @throws IllegalArgumentException if name is null
+     */
+    public static TagDescriptor of(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Tag name cannot be null");
+        }
+        TagDescriptor descriptor = REGISTRY.get(name);
+        if (descriptor != null) {
+            return descriptor;
+        }
+
+        descriptor = new TagDescriptor(name);
+        if (REGISTRY.size() < MAX_INTERNED) {
+            TagDescriptor existing = REGISTRY.putIfAbsent(name, descriptor);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return descriptor;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return whether the tag is a void element written without a closing tag (case-insensitive)
+     */
+    public boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    /**
+     * @return whether the tag is "meta" in any case, whose object value expands to several meta tags
+     */
+    public boolean isMeta() {
+        return meta;
+    }
+
+    /**
+     * @return position among semantically ordered body elements, or -1 for other tags
+     */
+    public int bodyOrder() {
+        return bodyOrder;
+    }
+
+    /**
+     * @return {@code <name>}
+     */
+    public String openTag() {
+        return openTag;
+    }
+
+    /**
+     * @return {@code <name}, to be followed by attributes
+     */
+    public String openTagStart() {
+        return openTagStart;
+    }
+
+    /**
+     * @return {@code </name>}
+     */
+    public String closeTag() {
+        return closeTag;
+    }
+}
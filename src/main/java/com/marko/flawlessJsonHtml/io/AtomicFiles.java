@@ -0,0 +1,51 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files without exposing a partly written version.
+ * <p>
+ * The new content is written into a temporary file next to the target and moved over it in
+ * one step, so readers see either the old or the new file, and a write that fails part way
+ * leaves the old file untouched. Because the target is replaced rather than truncated, a
+ * hard link to the old file (such as an output cache entry) keeps its content.
+ */
+public final class AtomicFiles {
+
+    /**
+     * Writes a whole file.
+     *
+     * @param <E> failure the write may raise besides I/O errors
+     */
+    @FunctionalInterface
+    public interface Write<E extends Exception> {
+        void writeTo(Path file) throws IOException, E;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the target through a temporary file and moves it into place once the write returns.
+     *
+     * @throws IOException if writing or moving fails; the temporary file is removed
+     * @throws E if the write fails; the temporary file is removed
+     */
+    public static <E extends Exception> void replace(Path target, Write<E> write) throws IOException, E {
+        Path temporary = target.resolveSibling(
+                "." + target.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        boolean moved = false;
+        try {
+            write.writeTo(temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output stream that collects bytes in a pooled direct buffer and writes them to a channel.
+ * <p>
+ * A direct buffer is handed to the channel as is, whereas heap arrays would first be copied
+ * into a temporary native buffer on every write. Closing the stream returns the buffer to its
+ * pool and closes the channel.
+ */
+public final class ChannelOutputStream extends OutputStream {
+
+    private final WritableByteChannel channel;
+    private final DirectBufferPool pool;
+    private ByteBuffer buffer;
+
+    public ChannelOutputStream(WritableByteChannel channel, DirectBufferPool pool) {
+        if (channel == null || pool == null) {
+            throw new IllegalArgumentException("Channel and buffer pool cannot be null");
+        }
+        this.channel = channel;
+        this.pool = pool;
+        this.buffer = pool.acquire();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer().hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer target = buffer();
+        while (length > 0) {
+            if (!target.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(length, target.remaining());
+            target.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            pool.release(buffer);
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the buffer that pending bytes are collected in
+     */
+    ByteBuffer buffer() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Stream is closed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes all pending bytes to the channel and empties the buffer.
+     */
+    void drain() throws IOException {
+        ByteBuffer pending = buffer();
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+}
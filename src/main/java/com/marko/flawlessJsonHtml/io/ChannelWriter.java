@@ -0,0 +1,108 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer that encodes UTF-8 directly into the pooled direct buffer of a {@link ChannelOutputStream}.
+ * <p>
+ * Character sequences are encoded in place without being copied into an intermediate
+ * String or byte array first.
+ */
+public final class ChannelWriter extends Writer {
+
+    private final ChannelOutputStream out;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer pair = CharBuffer.allocate(2);
+    private boolean hasPendingSurrogate;
+
+    public ChannelWriter(WritableByteChannel channel, DirectBufferPool pool) {
+        this.out = new ChannelOutputStream(channel, pool);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(str, off, off + len));
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        encode(CharBuffer.wrap(csq != null ? csq : "null"));
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        encode(CharBuffer.wrap(csq != null ? csq : "null", start, end));
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!hasPendingSurrogate) {
+                pair.clear();
+            }
+            // A lone trailing high surrogate is replaced; the final call also moves the encoder to its end state
+            pair.flip();
+            encode(pair, true);
+            hasPendingSurrogate = false;
+            while (encoder.flush(out.buffer()).isOverflow()) {
+                out.drain();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void encode(CharBuffer in) throws IOException {
+        while (hasPendingSurrogate) {
+            // Complete the high surrogate left over from the previous write
+            if (!in.hasRemaining()) {
+                return;
+            }
+            pair.put(in.get()).flip();
+            encode(pair, false);
+            hasPendingSurrogate = pair.hasRemaining();
+            pair.compact();
+        }
+
+        encode(in, false);
+        if (in.hasRemaining()) {
+            pair.clear();
+            pair.put(in.get());
+            hasPendingSurrogate = true;
+        }
+    }
+
+    private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(in, out.buffer(), endOfInput);
+            if (result.isOverflow()) {
+                out.drain();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+}
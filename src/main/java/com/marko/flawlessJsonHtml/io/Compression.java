@@ -0,0 +1,79 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to output files while they are written.
+ * <p>
+ * The compressor sits between the renderer and the file, so the document is compressed
+ * in the same pass that produces it and no uncompressed copy is ever written or buffered.
+ */
+public enum Compression {
+    /** Plain output. */
+    NONE(""),
+    /** gzip container, served with {@code Content-Encoding: gzip}. */
+    GZIP(".gz"),
+    /** zlib-wrapped deflate stream, served with {@code Content-Encoding: deflate}. */
+    DEFLATE(".deflate");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String fileExtension;
+
+    Compression(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public static Compression fromOption(String value) {
+        return switch (value.toLowerCase()) {
+            case "none" -> NONE;
+            case "gzip", "gz" -> GZIP;
+            case "deflate", "zlib" -> DEFLATE;
+            default -> throw new IllegalArgumentException("Unknown compression: " + value);
+        };
+    }
+
+    /**
+     * @return extension appended to compressed file names, empty for {@link #NONE}
+     */
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Appends this compression's extension to a file name, e.g. {@code output.html.gz}.
+     */
+    public Path outputFile(Path file) {
+        if (this == NONE || file.getFileName().toString().endsWith(fileExtension)) {
+            return file;
+        }
+        return file.resolveSibling(file.getFileName() + fileExtension);
+    }
+
+    /**
+     * Wraps a stream so that everything written to it is compressed. Closing the returned
+     * stream finishes the compressed data and closes the given stream.
+     */
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE);
+            case DEFLATE -> new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    // A deflater passed in by the caller is not released by DeflaterOutputStream itself
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        };
+    }
+}
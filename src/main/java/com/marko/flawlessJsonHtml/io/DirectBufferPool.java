@@ -0,0 +1,81 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of equally sized direct byte buffers.
+ * <p>
+ * Direct buffers are expensive to allocate and are only reclaimed by the garbage
+ * collector, so output channels borrow one per conversion and return it when closed.
+ * Safe to share between threads.
+ */
+public final class DirectBufferPool {
+
+    /**
+     * Default size of each pooled buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // Large enough for any single UTF-8 encoded character
+    private static final int MIN_BUFFER_SIZE = 4;
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize capacity of each buffer in bytes
+     * @param maxPooled largest number of idle buffers kept for reuse
+     */
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + " bytes");
+        }
+        if (maxPooled < 0) {
+            throw new IllegalArgumentException("Pool size cannot be negative");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return an empty direct buffer, reused if one is idle
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire()}. Buffers beyond the pool size are dropped.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer.clear());
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return number of idle buffers currently held
+     */
+    public int idleCount() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,129 @@
+package com.marko.flawlessJsonHtml.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file through memory-mapped windows.
+ * <p>
+ * Bytes are decoded straight from the mapping into the caller's character array, so
+ * neither a heap copy of the file nor a String of its content is created. Large files are
+ * mapped one window at a time; a character split across two windows is completed by
+ * mapping the next window from the first undecoded byte.
+ */
+public final class MappedUtf8Reader extends Reader {
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharBuffer pair = CharBuffer.allocate(2);
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean flushed;
+
+    /**
+     * Opens and maps the first window of the given file.
+     *
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedUtf8Reader(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            map(0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        pair.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (window == null) {
+            throw new IOException("Reader is closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int written = 0;
+        if (pair.hasRemaining()) {
+            // Second half of a surrogate pair that did not fit into the previous call
+            cbuf[off] = pair.get();
+            written = 1;
+        }
+
+        if (flushed) {
+            return written == 0 ? -1 : written;
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off + written, len - written);
+        while (out.hasRemaining()) {
+            boolean lastWindow = windowStart + window.limit() == size;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isOverflow()) {
+                if (out.position() == off + written && len - written == 1) {
+                    return written + readSplitPair(cbuf, off + written, lastWindow);
+                }
+                break;
+            }
+            if (!lastWindow) {
+                map(windowStart + window.position());
+            } else {
+                if (!flushed) {
+                    decoder.flush(out);
+                    flushed = true;
+                }
+                break;
+            }
+        }
+
+        written += out.position() - (off + written);
+        return written == 0 ? -1 : written;
+    }
+
+    /**
+     * Decodes a surrogate pair when the caller has room for one character only.
+     */
+    private int readSplitPair(char[] cbuf, int off, boolean lastWindow) throws IOException {
+        pair.clear();
+        CoderResult result = decoder.decode(window, pair, lastWindow);
+        if (result.isError()) {
+            result.throwException();
+        }
+        pair.flip();
+        cbuf[off] = pair.get();
+        return 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        windowStart = start;
+    }
+}
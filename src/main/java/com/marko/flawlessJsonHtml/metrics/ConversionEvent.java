@@ -0,0 +1,58 @@
+package com.marko.flawlessJsonHtml.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event carrying the measurements of one document conversion.
+ * Record with {@code -XX:StartFlightRecording} to capture it.
+ */
+@Name("com.marko.flawlessJsonHtml.Conversion")
+@Label("JSON to HTML Conversion")
+@Category("JSON to HTML")
+@Description("Per-stage timings and counters of one document conversion")
+class ConversionEvent extends jdk.jfr.Event {
+
+    @Label("Document")
+    String document;
+
+    @Label("Read")
+    @Timespan
+    long readNanos;
+
+    @Label("Parse")
+    @Timespan
+    long parseNanos;
+
+    @Label("Convert")
+    @Timespan
+    long convertNanos;
+
+    @Label("Write")
+    @Timespan
+    long writeNanos;
+
+    @Label("Input Size")
+    @DataAmount
+    long inputBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    long outputBytes;
+
+    @Label("Elements")
+    long elements;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Escaped Values")
+    long escapes;
+
+    @Label("Escaped Values Changed")
+    long escapeHits;
+}
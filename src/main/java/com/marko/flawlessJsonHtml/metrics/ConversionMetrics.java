@@ -0,0 +1,54 @@
+package com.marko.flawlessJsonHtml.metrics;
+
+/**
+ * Receives measurements taken while a document is converted.
+ * <p>
+ * All methods default to no-ops and {@link #NOOP} reports itself as disabled, so
+ * instrumented code guards with {@link #isEnabled()} and skips even the clock reads
+ * when nobody is listening. Implementations are used by one conversion at a time.
+ */
+public interface ConversionMetrics {
+
+    /**
+     * Metrics sink that records nothing.
+     */
+    ConversionMetrics NOOP = new ConversionMetrics() {
+    };
+
+    /**
+     * Timed stages of a conversion.
+     */
+    enum Stage {
+        READ, PARSE, CONVERT, WRITE
+    }
+
+    default boolean isEnabled() {
+        return false;
+    }
+
+    default void recordStage(Stage stage, long nanos) {
+    }
+
+    default void recordInputBytes(long bytes) {
+    }
+
+    default void recordOutputBytes(long bytes) {
+    }
+
+    /**
+     * Called once for every element written.
+     *
+     * @param tagName element name
+     * @param depth nesting depth, 0 for the html element
+     */
+    default void recordElement(String tagName, int depth) {
+    }
+
+    /**
+     * Called once for every escaped value.
+     *
+     * @param changed whether the value contained characters that had to be replaced
+     */
+    default void recordEscape(boolean changed) {
+    }
+}
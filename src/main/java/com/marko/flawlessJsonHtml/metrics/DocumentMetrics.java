@@ -0,0 +1,167 @@
+package com.marko.flawlessJsonHtml.metrics;
+
+import jdk.jfr.FlightRecorder;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measurements of a single document conversion.
+ * <p>
+ * Not thread-safe; use one instance per conversion.
+ */
+public final class DocumentMetrics implements ConversionMetrics {
+
+    private final String document;
+    private final long[] stageNanos = new long[Stage.values().length];
+    private final Map<String, Integer> elementCounts = new HashMap<>();
+    private long inputBytes;
+    private long outputBytes;
+    private long elements;
+    private int maxDepth;
+    private long escapes;
+    private long escapeHits;
+
+    public DocumentMetrics(String document) {
+        this.document = document;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    @Override
+    public void recordInputBytes(long bytes) {
+        inputBytes += bytes;
+    }
+
+    @Override
+    public void recordOutputBytes(long bytes) {
+        outputBytes += bytes;
+    }
+
+    @Override
+    public void recordElement(String tagName, int depth) {
+        elements++;
+        elementCounts.merge(tagName, 1, Integer::sum);
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    @Override
+    public void recordEscape(boolean changed) {
+        escapes++;
+        if (changed) {
+            escapeHits++;
+        }
+    }
+
+    public String document() {
+        return document;
+    }
+
+    public long stageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long nanos : stageNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    public long inputBytes() {
+        return inputBytes;
+    }
+
+    public long outputBytes() {
+        return outputBytes;
+    }
+
+    public long elements() {
+        return elements;
+    }
+
+    public Map<String, Integer> elementCounts() {
+        return Map.copyOf(elementCounts);
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public long escapes() {
+        return escapes;
+    }
+
+    public long escapeHits() {
+        return escapeHits;
+    }
+
+    /**
+     * @return whether a running flight recording has the conversion event enabled
+     */
+    public static boolean isJfrEventEnabled() {
+        // Without a recorder no event can be enabled; checking first keeps the event
+        // class and the JFR machinery behind it from loading on every short CLI run
+        return FlightRecorder.isInitialized() && new ConversionEvent().isEnabled();
+    }
+
+    /**
+     * Commits this document's measurements as a JFR event; a no-op unless a recording enables it.
+     */
+    public void emitJfrEvent() {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        ConversionEvent event = new ConversionEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.document = document;
+        event.readNanos = stageNanos(Stage.READ);
+        event.parseNanos = stageNanos(Stage.PARSE);
+        event.convertNanos = stageNanos(Stage.CONVERT);
+        event.writeNanos = stageNanos(Stage.WRITE);
+        event.inputBytes = inputBytes;
+        event.outputBytes = outputBytes;
+        event.elements = elements;
+        event.maxDepth = maxDepth;
+        event.escapes = escapes;
+        event.escapeHits = escapeHits;
+        event.commit();
+    }
+
+    /**
+     * @return machine-readable summary of this document
+     */
+    public JSONObject toJson() {
+        JSONObject stages = new JSONObject();
+        for (Stage stage : Stage.values()) {
+            stages.put(stage.name().toLowerCase(), TimeUnit.NANOSECONDS.toMicros(stageNanos(stage)));
+        }
+
+        return new JSONObject()
+                .put("document", document)
+                .put("stageMicros", stages)
+                .put("totalMicros", TimeUnit.NANOSECONDS.toMicros(totalNanos()))
+                .put("inputBytes", inputBytes)
+                .put("outputBytes", outputBytes)
+                .put("elements", elements)
+                .put("elementCounts", new JSONObject(elementCounts))
+                .put("maxDepth", maxDepth)
+                .put("escapes", escapes)
+                .put("escapeHits", escapeHits);
+    }
+}
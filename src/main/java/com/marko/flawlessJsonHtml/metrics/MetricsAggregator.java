@@ -0,0 +1,91 @@
+package com.marko.flawlessJsonHtml.metrics;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects {@link DocumentMetrics} from many conversions and summarizes them.
+ * <p>
+ * Stage durations are reported as per-document percentiles (p50, p90, p99, max);
+ * counters are summed. Safe to use from concurrent batch workers.
+ */
+public final class MetricsAggregator {
+
+    private final List<DocumentMetrics> documents = new ArrayList<>();
+
+    public synchronized void add(DocumentMetrics metrics) {
+        documents.add(metrics);
+    }
+
+    public synchronized int documentCount() {
+        return documents.size();
+    }
+
+    /**
+     * @return machine-readable summary of all collected documents
+     */
+    public synchronized JSONObject toJson() {
+        JSONObject stages = new JSONObject();
+        for (ConversionMetrics.Stage stage : ConversionMetrics.Stage.values()) {
+            stages.put(stage.name().toLowerCase(), percentiles(documents.stream()
+                    .mapToLong(document -> document.stageNanos(stage)).toArray()));
+        }
+
+        Map<String, Integer> elementCounts = new HashMap<>();
+        long inputBytes = 0;
+        long outputBytes = 0;
+        long escapes = 0;
+        long escapeHits = 0;
+        int maxDepth = 0;
+        for (DocumentMetrics document : documents) {
+            document.elementCounts().forEach((tag, count) -> elementCounts.merge(tag, count, Integer::sum));
+            inputBytes += document.inputBytes();
+            outputBytes += document.outputBytes();
+            escapes += document.escapes();
+            escapeHits += document.escapeHits();
+            maxDepth = Math.max(maxDepth, document.maxDepth());
+        }
+
+        return new JSONObject()
+                .put("documents", documents.size())
+                .put("stageMicros", stages)
+                .put("totalMicros", percentiles(documents.stream().mapToLong(DocumentMetrics::totalNanos).toArray()))
+                .put("inputBytes", inputBytes)
+                .put("outputBytes", outputBytes)
+                .put("elementCounts", new JSONObject(elementCounts))
+                .put("maxDepth", maxDepth)
+                .put("escapes", escapes)
+                .put("escapeHitRate", escapes == 0 ? 0.0 : (double) escapeHits / escapes);
+    }
+
+    private static JSONObject percentiles(long[] nanos) {
+        Arrays.sort(nanos);
+        return new JSONObject()
+                .put("p50", micros(percentile(nanos, 0.50)))
+                .put("p90", micros(percentile(nanos, 0.90)))
+                .put("p99", micros(percentile(nanos, 0.99)))
+                .put("max", micros(nanos.length == 0 ? 0 : nanos[nanos.length - 1]))
+                .put("total", micros(Arrays.stream(nanos).sum()));
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
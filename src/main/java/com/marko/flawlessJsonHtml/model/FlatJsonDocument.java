@@ -0,0 +1,553 @@
+package com.marko.flawlessJsonHtml.model;
+
+import com.marko.flawlessJsonHtml.converter.ArrayTooLongException;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.InputTooLargeException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.NestingTooDeepException;
+
+import java.util.Arrays;
+
+/**
+ * Compact native JSON document.
+ * <p>
+ * Every value is a node numbered in document order and described by a few array slots: its
+ * kind and its start and end offsets in the source text. Containers also point at a run in a
+ * shared member array that lists their children (key and value nodes in turn for objects).
+ * There are no per-node objects, maps or boxed values; strings and numbers stay in the source
+ * and are only decoded when asked for. Members keep their source order, and duplicate keys are
+ * kept as separate members.
+ * <p>
+ * The grammar is strict RFC 8259; see {@link JsonBackend#NATIVE} for the inputs this rejects
+ * although org.json accepts them.
+ * <p>
+ * The parser walks the text with an explicit stack, so nesting depth is bounded by
+ * {@link ConversionLimits#maxDepth()} and the heap, never by the thread stack.
+ * Documents are immutable once parsed and may be read from several threads.
+ */
+public final class FlatJsonDocument {
+
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+    private static final byte STRING = 2;
+    private static final byte ESCAPED_STRING = 3;
+    private static final byte NUMBER = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte NULL = 7;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String source;
+    private final ConversionLimits limits;
+    private int pos;
+
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] firsts;
+    private int[] sizes;
+    private int nodeCount;
+
+    private int[] members = new int[INITIAL_CAPACITY];
+    private int memberCount;
+
+    // Children of the open containers, moved to members when their container closes
+    private int[] pending = new int[INITIAL_CAPACITY];
+    private int pendingCount;
+    private int[] openNodes = new int[16];
+    private int[] openPending = new int[16];
+    private int depth;
+
+    private FlatJsonDocument(String source, ConversionLimits limits) {
+        this.source = source;
+        this.limits = limits;
+        // Typical documents have a node every dozen characters or so
+        int capacity = Math.max(INITIAL_CAPACITY, source.length() / 12);
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        firsts = new int[capacity];
+        sizes = new int[capacity];
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @throws JsonHtmlConversionException if the text is not valid JSON
+     * @throws IllegalArgumentException if json is null
+     */
+    public static FlatJsonDocument parse(String json) throws JsonHtmlConversionException {
+        return parse(json, ConversionLimits.UNLIMITED);
+    }
+
+    /**
+     * Parses a JSON document, failing as soon as the text crosses an input limit.
+     *
+     * @throws com.marko.flawlessJsonHtml.converter.LimitExceededException if the text is too large,
+     *         too deep or has too long arrays
+     * @throws JsonHtmlConversionException if the text is not valid JSON
+     * @throws IllegalArgumentException if json or limits is null
+     */
+    public static FlatJsonDocument parse(String json, ConversionLimits limits) throws JsonHtmlConversionException {
+        if (json == null || limits == null) {
+            throw new IllegalArgumentException("JSON text and limits cannot be null");
+        }
+        limits.checkInputSize(json.length());
+
+        FlatJsonDocument document = new FlatJsonDocument(json, limits);
+        document.parse();
+        // The parse buffers are not needed for reading
+        document.pending = null;
+        document.openNodes = null;
+        document.openPending = null;
+        return document;
+    }
+
+    /**
+     * @return the root value
+     */
+    public JsonNode root() {
+        return new Node(0);
+    }
+
+    /**
+     * @return number of values in the document
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    private void parse() throws JsonHtmlConversionException {
+        boolean expectingValue = true;
+
+        while (true) {
+            if (expectingValue) {
+                int c = skipWhitespace();
+                switch (c) {
+                    case '{' -> {
+                        open(OBJECT);
+                        if (skipWhitespace() == '}') {
+                            pos++;
+                            close();
+                            expectingValue = false;
+                        } else {
+                            readKey();
+                        }
+                    }
+                    case '[' -> {
+                        open(ARRAY);
+                        if (skipWhitespace() == ']') {
+                            pos++;
+                            close();
+                            expectingValue = false;
+                        }
+                    }
+                    case '"' -> {
+                        addChild(readString());
+                        expectingValue = false;
+                    }
+                    case 't' -> {
+                        addChild(readLiteral("true", TRUE));
+                        expectingValue = false;
+                    }
+                    case 'f' -> {
+                        addChild(readLiteral("false", FALSE));
+                        expectingValue = false;
+                    }
+                    case 'n' -> {
+                        addChild(readLiteral("null", NULL));
+                        expectingValue = false;
+                    }
+                    case -1 -> throw error(nodeCount == 0 ? "JSON document is empty" : "Unexpected end of document");
+                    default -> {
+                        if (c != '-' && (c < '0' || c > '9')) {
+                            throw error("Unexpected character '" + (char) c + "'");
+                        }
+                        addChild(readNumber());
+                        expectingValue = false;
+                    }
+                }
+                continue;
+            }
+
+            int c = skipWhitespace();
+            if (depth == 0) {
+                if (c != -1) {
+                    throw error("Unexpected content after end of document");
+                }
+                return;
+            }
+
+            boolean inObject = kinds[openNodes[depth - 1]] == OBJECT;
+            if (c == ',') {
+                pos++;
+                if (inObject) {
+                    skipWhitespace();
+                    readKey();
+                }
+                expectingValue = true;
+            } else if (c == (inObject ? '}' : ']')) {
+                pos++;
+                close();
+            } else {
+                throw error(inObject ? "Expected ',' or '}' in object" : "Expected ',' or ']' in array");
+            }
+        }
+    }
+
+    private void open(byte kind) throws JsonHtmlConversionException {
+        if (depth == limits.maxDepth()) {
+            throw new NestingTooDeepException(limits.maxDepth());
+        }
+        int node = addNode(kind, pos, 0);
+        pos++;
+        addChild(node);
+
+        if (depth == openNodes.length) {
+            openNodes = Arrays.copyOf(openNodes, depth * 2);
+            openPending = Arrays.copyOf(openPending, depth * 2);
+        }
+        openNodes[depth] = node;
+        openPending[depth] = pendingCount;
+        depth++;
+    }
+
+    private void close() {
+        depth--;
+        int node = openNodes[depth];
+        int first = openPending[depth];
+        int count = pendingCount - first;
+
+        if (memberCount + count > members.length) {
+            members = Arrays.copyOf(members, Math.max(members.length * 2, memberCount + count));
+        }
+        System.arraycopy(pending, first, members, memberCount, count);
+        firsts[node] = memberCount;
+        sizes[node] = kinds[node] == OBJECT ? count / 2 : count;
+        ends[node] = pos;
+        memberCount += count;
+        pendingCount = first;
+    }
+
+    /**
+     * Records a value as the next child of the innermost open container.
+     */
+    private void addChild(int node) throws ArrayTooLongException {
+        if (depth == 0) {
+            return;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = node;
+
+        int container = openNodes[depth - 1];
+        if (kinds[container] == ARRAY && pendingCount - openPending[depth - 1] > limits.maxArrayLength()) {
+            throw new ArrayTooLongException(limits.maxArrayLength());
+        }
+    }
+
+    private int addNode(byte kind, int start, int end) {
+        if (nodeCount == kinds.length) {
+            int capacity = nodeCount + (nodeCount >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        kinds[nodeCount] = kind;
+        starts[nodeCount] = start;
+        ends[nodeCount] = end;
+        return nodeCount++;
+    }
+
+    private void readKey() throws JsonHtmlConversionException {
+        if (pos >= source.length() || source.charAt(pos) != '"') {
+            throw error("Expected field name");
+        }
+        addChild(readString());
+        if (skipWhitespace() != ':') {
+            throw error("Expected ':' after field name");
+        }
+        pos++;
+    }
+
+    /**
+     * Validates a string starting at the opening quote. Only its bounds and whether it
+     * contains escapes are recorded; the content is decoded when it is read.
+     */
+    private int readString() throws JsonHtmlConversionException {
+        int start = ++pos;
+        boolean escaped = false;
+        int length = source.length();
+
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '"') {
+                int node = addNode(escaped ? ESCAPED_STRING : STRING, start, pos);
+                pos++;
+                return node;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+                if (pos >= length) {
+                    break;
+                }
+                switch (source.charAt(pos)) {
+                    case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> pos++;
+                    case 'u' -> {
+                        for (int i = 1; i <= 4; i++) {
+                            if (pos + i >= length || Character.digit(source.charAt(pos + i), 16) < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+                        }
+                        pos += 5;
+                    }
+                    default -> throw error("Invalid escape sequence");
+                }
+            } else if (c < 0x20) {
+                throw error("Unescaped control character in string");
+            } else {
+                pos++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private int readNumber() throws JsonHtmlConversionException {
+        int start = pos;
+        if (peek() == '-') {
+            pos++;
+        }
+        if (peek() == '0') {
+            pos++;
+        } else if (isDigit(peek())) {
+            skipDigits();
+        } else {
+            throw error("Invalid number");
+        }
+        if (peek() == '.') {
+            pos++;
+            if (!isDigit(peek())) {
+                throw error("Invalid number");
+            }
+            skipDigits();
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            pos++;
+            if (peek() == '+' || peek() == '-') {
+                pos++;
+            }
+            if (!isDigit(peek())) {
+                throw error("Invalid number");
+            }
+            skipDigits();
+        }
+        return addNode(NUMBER, start, pos);
+    }
+
+    private int readLiteral(String literal, byte kind) throws JsonHtmlConversionException {
+        if (!source.startsWith(literal, pos)) {
+            throw error("Invalid literal");
+        }
+        int node = addNode(kind, pos, pos + literal.length());
+        pos += literal.length();
+        return node;
+    }
+
+    private void skipDigits() {
+        while (isDigit(peek())) {
+            pos++;
+        }
+    }
+
+    private int peek() {
+        return pos < source.length() ? source.charAt(pos) : -1;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Moves past whitespace and returns the next character without consuming it, or -1 at the end.
+     */
+    private int skipWhitespace() {
+        int length = source.length();
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private JsonHtmlConversionException error(String message) {
+        return new JsonHtmlConversionException(message + " at character " + pos);
+    }
+
+    private String decode(int node) {
+        if (kinds[node] == STRING) {
+            return source.substring(starts[node], ends[node]);
+        }
+
+        // Escapes were validated while parsing
+        StringBuilder text = new StringBuilder(ends[node] - starts[node]);
+        int end = ends[node];
+        int i = starts[node];
+        while (i < end) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                text.append(JsonSlice.unescape(source, i));
+                i += JsonSlice.escapeLength(source, i);
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a value as compact JSON. Strings keep their source escapes and numbers their source spelling.
+     */
+    private void appendJson(int node, StringBuilder out) {
+        byte kind = kinds[node];
+        if (kind == STRING || kind == ESCAPED_STRING) {
+            out.append('"').append(source, starts[node], ends[node]).append('"');
+            return;
+        }
+        if (kind != OBJECT && kind != ARRAY) {
+            out.append(source, starts[node], ends[node]);
+            return;
+        }
+
+        boolean object = kind == OBJECT;
+        int first = firsts[node];
+        out.append(object ? '{' : '[');
+        for (int i = 0; i < sizes[node]; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            if (object) {
+                appendJson(members[first + 2 * i], out);
+                out.append(':');
+                appendJson(members[first + 2 * i + 1], out);
+            } else {
+                appendJson(members[first + i], out);
+            }
+        }
+        out.append(object ? '}' : ']');
+    }
+
+    private boolean keyEquals(int node, String name) {
+        if (kinds[node] == ESCAPED_STRING) {
+            return decode(node).equals(name);
+        }
+        int length = ends[node] - starts[node];
+        return length == name.length() && source.regionMatches(starts[node], name, 0, length);
+    }
+
+    /**
+     * View of one node. Views are created on access and hold nothing but the node number.
+     */
+    private final class Node implements JsonNode {
+        private final int id;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Type type() {
+            return switch (kinds[id]) {
+                case OBJECT -> Type.OBJECT;
+                case ARRAY -> Type.ARRAY;
+                case STRING, ESCAPED_STRING -> Type.STRING;
+                case NUMBER -> Type.NUMBER;
+                case TRUE, FALSE -> Type.BOOLEAN;
+                default -> Type.NULL;
+            };
+        }
+
+        @Override
+        public int size() {
+            byte kind = kinds[id];
+            return kind == OBJECT || kind == ARRAY ? sizes[id] : 0;
+        }
+
+        @Override
+        public String key(int index) {
+            return decode(members[firsts[id] + 2 * index]);
+        }
+
+        @Override
+        public JsonNode value(int index) {
+            int slot = kinds[id] == OBJECT ? 2 * index + 1 : index;
+            return new Node(members[firsts[id] + slot]);
+        }
+
+        @Override
+        public JsonNode get(String name) {
+            if (kinds[id] != OBJECT) {
+                return null;
+            }
+            int first = firsts[id];
+            for (int i = 0; i < sizes[id]; i++) {
+                if (keyEquals(members[first + 2 * i], name)) {
+                    return new Node(members[first + 2 * i + 1]);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public JsonNode object(String name) {
+            JsonNode value = get(name);
+            if (value == null || !value.isObject()) {
+                throw new JsonTypeException("Member \"" + name + "\" is not an object");
+            }
+            return value;
+        }
+
+        @Override
+        public String string(int index) {
+            int value = members[firsts[id] + 2 * index + 1];
+            byte kind = kinds[value];
+            if (kind != STRING && kind != ESCAPED_STRING) {
+                throw new JsonTypeException("Member \"" + key(index) + "\" is not a string");
+            }
+            return decode(value);
+        }
+
+        @Override
+        public JsonSlice slice() {
+            byte kind = kinds[id];
+            return kind == OBJECT || kind == ARRAY ? null : new JsonSlice(source, starts[id], ends[id]);
+        }
+
+        @Override
+        public String text() {
+            byte kind = kinds[id];
+            if (kind == STRING || kind == ESCAPED_STRING) {
+                return decode(id);
+            }
+            if (kind == OBJECT || kind == ARRAY) {
+                StringBuilder json = new StringBuilder(ends[id] - starts[id]);
+                appendJson(id, json);
+                return json.toString();
+            }
+            return source.substring(starts[id], ends[id]);
+        }
+
+        @Override
+        public JsonSlice source() {
+            return new JsonSlice(source, starts[id], ends[id]);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.marko.flawlessJsonHtml.model;
+
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.LimitScanner;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Parsers that turn JSON text into a {@link JsonNode} tree the renderers can walk.
+ */
+public enum JsonBackend {
+
+    /**
+     * org.json trees behind {@link OrgJsonNode}. Object keys are rendered in org.json's
+     * hash order, as the converter always has.
+     */
+    ORG_JSON {
+        @Override
+        public JsonNode parse(String json, ConversionLimits limits) throws JsonHtmlConversionException {
+            if (limits.isBounded()) {
+                // org.json cannot be stopped part way, so the text is scanned against the limits first;
+                // the scan leaves the grammar to org.json, so limits do not change what is accepted
+                new LimitScanner(limits).scan(json);
+            }
+            try {
+                return OrgJsonNode.of(new JSONObject(json));
+            } catch (JSONException e) {
+                throw new JsonHtmlConversionException(e.getMessage(), e);
+            }
+        }
+    },
+
+    /**
+     * {@link FlatJsonDocument}: several times faster to build and much smaller than an org.json
+     * tree. Object keys are rendered in source order, numbers as they are written in the source.
+     * <p>
+     * The two backends do not accept the same documents. The native parser follows RFC 8259
+     * strictly and rejects what org.json tolerates: content after the root value, numbers with
+     * leading zeros, trailing commas, unquoted or single-quoted keys and strings, and raw control
+     * characters such as tabs inside strings. It also keeps duplicate keys, which org.json
+     * rejects, and renders every one of them as its own element.
+     */
+    NATIVE {
+        @Override
+        public JsonNode parse(String json, ConversionLimits limits) throws JsonHtmlConversionException {
+            JsonNode root = FlatJsonDocument.parse(json, limits).root();
+            if (!root.isObject()) {
+                throw new JsonHtmlConversionException("JSON root must be an object");
+            }
+            return root;
+        }
+    };
+
+    /**
+     * Parses a JSON object, enforcing the input limits while doing so.
+     *
+     * @param json JSON text whose root is an object
+     * @param limits input limits; {@link ConversionLimits#UNLIMITED} for none
+     * @return the root object
+     * @throws com.marko.flawlessJsonHtml.converter.LimitExceededException if the text exceeds a limit
+     * @throws JsonHtmlConversionException if the text is not a JSON object; the message names the problem only
+     */
+    public abstract JsonNode parse(String json, ConversionLimits limits) throws JsonHtmlConversionException;
+
+    public static JsonBackend fromOption(String value) {
+        return switch (value.toLowerCase()) {
+            case "org", "org.json", "orgjson" -> ORG_JSON;
+            case "native", "flat" -> NATIVE;
+            default -> throw new IllegalArgumentException("Unknown JSON backend: " + value);
+        };
+    }
+}
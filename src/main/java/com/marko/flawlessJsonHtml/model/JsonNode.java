@@ -0,0 +1,113 @@
+package com.marko.flawlessJsonHtml.model;
+
+/**
+ * Read-only view of one JSON value; the document model the renderers are written against.
+ * <p>
+ * Object members and array items are addressed by index, so walking a document needs no
+ * iterators and no key lookups. {@link OrgJsonNode} adapts org.json trees and keeps their
+ * key order; {@link FlatJsonDocument} parses straight into flat offset arrays and keeps the
+ * source order.
+ */
+public interface JsonNode {
+
+    /**
+     * Kinds of JSON values.
+     */
+    enum Type {
+        OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+    }
+
+    Type type();
+
+    default boolean isObject() {
+        return type() == Type.OBJECT;
+    }
+
+    default boolean isArray() {
+        return type() == Type.ARRAY;
+    }
+
+    default boolean isString() {
+        return type() == Type.STRING;
+    }
+
+    /**
+     * @return number of members of an object or items of an array, 0 for other values
+     */
+    int size();
+
+    /**
+     * @return name of the object member at the index
+     */
+    String key(int index);
+
+    /**
+     * @return value of the object member or array item at the index
+     */
+    JsonNode value(int index);
+
+    /**
+     * @return value of the member with the given name, or null if there is none or this is not an object
+     */
+    JsonNode get(String name);
+
+    /**
+     * @return value of the member with the given name if it is an object, otherwise null
+     */
+    default JsonNode optObject(String name) {
+        JsonNode value = get(name);
+        return value != null && value.isObject() ? value : null;
+    }
+
+    /**
+     * Returns the member with the given name, which must be an object.
+     *
+     * @throws RuntimeException if the member is missing or not an object; {@link JsonTypeException}
+     *         or the exception of the underlying library
+     */
+    JsonNode object(String name);
+
+    /**
+     * Returns the content of the object member at the index, which must be a string.
+     *
+     * @throws RuntimeException if the member is not a string; {@link JsonTypeException}
+     *         or the exception of the underlying library
+     */
+    String string(int index);
+
+    /**
+     * @return content of a string; the JSON text of any other value
+     */
+    String text();
+
+    /**
+     * Returns the undecoded source of a string, number, boolean or null, for models that keep it.
+     * Renderers prefer it to {@link #text()} so the value is decoded while it is being escaped.
+     *
+     * @return source slice, or null if this value is a container or the model holds decoded values
+     */
+    default JsonSlice slice() {
+        return null;
+    }
+
+    /**
+     * Returns the text of this value as written in the document, objects and arrays included,
+     * for models that keep it. Values with equal source text have equal content.
+     *
+     * @return source slice, the same as {@link #slice()} for scalars, or null if the model holds parsed values
+     */
+    default JsonSlice source() {
+        return null;
+    }
+
+    /**
+     * Returns what stands for the viewed value in per-document caches. Views of the same value
+     * return equal identities even when the model creates a new view on every access; views of
+     * different objects or arrays never do.
+     *
+     * @return the view itself unless the model says otherwise
+     */
+    default Object identity() {
+        return this;
+    }
+}
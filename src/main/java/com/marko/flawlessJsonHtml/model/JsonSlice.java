@@ -0,0 +1,39 @@
+package com.marko.flawlessJsonHtml.model;
+
+/**
+ * Undecoded source text of one value: the characters between the quotes of a string, still
+ * JSON-escaped, a number or literal as written, or the whole text of an object or array.
+ * <p>
+ * Slices let a renderer unescape and HTML-escape a value in one pass straight into its output,
+ * without creating a String of the value first.
+ *
+ * @param source document text
+ * @param start index of the first character
+ * @param end index after the last character
+ */
+public record JsonSlice(String source, int start, int end) {
+
+    /**
+     * Decodes the escape sequence that starts with the backslash at the given index.
+     * The sequence must have been validated by the parser.
+     */
+    public static char unescape(String source, int backslash) {
+        char escape = source.charAt(backslash + 1);
+        return switch (escape) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> (char) Integer.parseInt(source, backslash + 2, backslash + 6, 16);
+            default -> escape;
+        };
+    }
+
+    /**
+     * @return number of characters in the escape sequence that starts with the backslash at the given index
+     */
+    public static int escapeLength(String source, int backslash) {
+        return source.charAt(backslash + 1) == 'u' ? 6 : 2;
+    }
+}
@@ -0,0 +1,16 @@
+package com.marko.flawlessJsonHtml.model;
+
+import java.io.Serial;
+
+/**
+ * Thrown by native document nodes when a value does not have the type the caller requires.
+ */
+public class JsonTypeException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public JsonTypeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,121 @@
+package com.marko.flawlessJsonHtml.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * {@link JsonNode} view of an org.json value.
+ * <p>
+ * Members are visited in the order of {@link JSONObject#keys()}, so rendering through this
+ * adapter produces exactly the markup of rendering the org.json tree directly. Type errors
+ * surface as org.json's own {@link org.json.JSONException}s.
+ */
+public final class OrgJsonNode implements JsonNode {
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final Object value;
+    private final Type type;
+    private String[] keys;
+
+    private OrgJsonNode(Object value, Type type) {
+        this.value = value;
+        this.type = type;
+    }
+
+    /**
+     * Wraps an org.json value: a JSONObject, JSONArray, String, Number, Boolean or {@link JSONObject#NULL}.
+     * Values of other classes are reported as {@link Type#NULL}.
+     *
+     * @return the wrapped value, or null for null
+     */
+    public static OrgJsonNode of(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Type type;
+        if (value instanceof JSONObject) {
+            type = Type.OBJECT;
+        } else if (value instanceof JSONArray) {
+            type = Type.ARRAY;
+        } else if (value instanceof String) {
+            type = Type.STRING;
+        } else if (value instanceof Number) {
+            type = Type.NUMBER;
+        } else if (value instanceof Boolean) {
+            type = Type.BOOLEAN;
+        } else {
+            type = Type.NULL;
+        }
+        return new OrgJsonNode(value, type);
+    }
+
+    /**
+     * @return the wrapped org.json value
+     */
+    public Object unwrap() {
+        return value;
+    }
+
+    @Override
+    public Type type() {
+        return type;
+    }
+
+    @Override
+    public int size() {
+        return switch (type) {
+            case OBJECT -> ((JSONObject) value).length();
+            case ARRAY -> ((JSONArray) value).length();
+            default -> 0;
+        };
+    }
+
+    @Override
+    public String key(int index) {
+        return keys()[index];
+    }
+
+    @Override
+    public JsonNode value(int index) {
+        if (type == Type.ARRAY) {
+            return of(((JSONArray) value).opt(index));
+        }
+        return of(((JSONObject) value).opt(keys()[index]));
+    }
+
+    @Override
+    public JsonNode get(String name) {
+        return type == Type.OBJECT ? of(((JSONObject) value).opt(name)) : null;
+    }
+
+    @Override
+    public JsonNode object(String name) {
+        return of(((JSONObject) value).getJSONObject(name));
+    }
+
+    @Override
+    public String string(int index) {
+        return ((JSONObject) value).getString(keys()[index]);
+    }
+
+    @Override
+    public String text() {
+        return value.toString();
+    }
+
+    /**
+     * @return the wrapped value; org.json containers compare by reference
+     */
+    @Override
+    public Object identity() {
+        return value;
+    }
+
+    private String[] keys() {
+        if (keys == null) {
+            keys = type == Type.OBJECT ? ((JSONObject) value).keySet().toArray(NO_KEYS) : NO_KEYS;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,281 @@
+package com.marko.flawlessJsonHtml.server;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running HTTP front end for {@link JsonHtmlConverter}.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *   <li>{@code POST /convert} - reads the whole JSON body and returns the HTML with a
+ *   Content-Length. Identical bodies reuse their cached output.</li>
+ *   <li>{@code POST /convert/stream} - parses the body as it arrives and streams the HTML
+ *   back chunked. Errors found before the first byte is sent still produce a 400.</li>
+ *   <li>{@code GET /health} - liveness probe with basic counters.</li>
+ * </ul>
+ * Documents that exceed the converter's {@link com.marko.flawlessJsonHtml.converter.ConversionLimits}
+ * are answered with 413.
+ */
+public class ConversionServer {
+
+    private static final Logger LOGGER = Logger.getLogger(ConversionServer.class.getName());
+    private static final String HTML_CONTENT_TYPE = "text/html; charset=utf-8";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    private final JsonHtmlConverter converter;
+    private final RenderedPageCache pageCache;
+    private final int maxBodyBytes;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Creates a server bound to the given address; call {@link #start()} to accept requests.
+     *
+     * @param converter shared converter, kept warm across requests
+     * @param pageCache output cache for buffered conversions
+     * @param address listen address, port 0 picks a free port
+     * @param executor request handler threads, shut down by {@link #stop(int)}
+     * @param maxBodyBytes largest accepted body for buffered conversions
+     * @throws IOException if the address cannot be bound
+     */
+    public ConversionServer(JsonHtmlConverter converter, RenderedPageCache pageCache, InetSocketAddress address,
+                            ExecutorService executor, int maxBodyBytes) throws IOException {
+        if (converter == null || pageCache == null || address == null || executor == null) {
+            throw new IllegalArgumentException("Server dependencies cannot be null");
+        }
+        if (maxBodyBytes < 1) {
+            throw new IllegalArgumentException("Maximum body size must be positive");
+        }
+        this.converter = converter;
+        this.pageCache = pageCache;
+        this.maxBodyBytes = maxBodyBytes;
+        this.executor = executor;
+
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/convert", this::handleConvert);
+        server.createContext("/convert/stream", this::handleStream);
+        server.createContext("/health", this::handleHealth);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("Conversion server listening on port " + port());
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given delay for running ones.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleConvert(HttpExchange exchange) {
+        try (exchange) {
+            try {
+                convert(exchange);
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Conversion request failed", e);
+                sendServerError(exchange);
+            }
+        }
+    }
+
+    private void handleStream(HttpExchange exchange) {
+        try (exchange) {
+            try {
+                stream(exchange);
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Streaming request failed", e);
+                sendServerError(exchange);
+            }
+        }
+    }
+
+    private void convert(HttpExchange exchange) throws IOException {
+        if (!requirePost(exchange)) {
+            return;
+        }
+
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendText(exchange, 413, "Request body exceeds " + maxBodyBytes + " bytes");
+            return;
+        }
+
+        String json = new String(body, StandardCharsets.UTF_8);
+        byte[] html;
+        try {
+            html = pageCache.get(json, () -> render(json));
+        } catch (LimitExceededException e) {
+            failures.incrementAndGet();
+            sendText(exchange, 413, e.getMessage());
+            return;
+        } catch (JsonHtmlConversionException e) {
+            failures.incrementAndGet();
+            sendText(exchange, 400, e.getMessage());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", HTML_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, html.length);
+        exchange.getResponseBody().write(html);
+        conversions.incrementAndGet();
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        if (!requirePost(exchange)) {
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", HTML_CONTENT_TYPE);
+        LazyResponseStream response = new LazyResponseStream(exchange);
+        try {
+            converter.convert(exchange.getRequestBody(), response);
+            response.flush();
+            conversions.incrementAndGet();
+        } catch (JsonHtmlConversionException e) {
+            failures.incrementAndGet();
+            if (response.isCommitted()) {
+                LOGGER.warning("Streaming conversion failed after response started: " + e.getMessage());
+            } else {
+                sendText(exchange, e instanceof LimitExceededException ? 413 : 400, e.getMessage());
+            }
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JSONObject status = new JSONObject()
+                    .put("status", "UP")
+                    .put("conversions", conversions.get())
+                    .put("failures", failures.get())
+                    .put("pageCacheSize", pageCache.size())
+                    .put("pageCacheHits", pageCache.hits());
+            byte[] body = status.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private byte[] render(String json) throws JsonHtmlConversionException {
+        return converter.convert(converter.parse(json)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private boolean requirePost(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", "POST");
+        sendText(exchange, 405, "Use POST with a JSON body");
+        return false;
+    }
+
+    /**
+     * @return the body, or null if it is larger than the configured maximum
+     */
+    private byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
+                return null;
+            }
+            body.write(chunk, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Answers an unexpected failure with 500 unless a status line was already sent, so the client
+     * sees an error rather than a dropped connection.
+     */
+    private static void sendServerError(HttpExchange exchange) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            sendText(exchange, 500, "Internal server error");
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not send the error response", e);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Sends the 200 status and switches to chunked encoding only when the first byte is written,
+     * so failures before any output can still be answered with an error status.
+     */
+    private static final class LazyResponseStream extends OutputStream {
+
+        private final HttpExchange exchange;
+        private OutputStream body;
+
+        LazyResponseStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        boolean isCommitted() {
+            return body != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            commit().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            commit().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        private OutputStream commit() throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+            }
+            return body;
+        }
+    }
+}
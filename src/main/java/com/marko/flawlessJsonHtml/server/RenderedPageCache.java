@@ -0,0 +1,115 @@
+package com.marko.flawlessJsonHtml.server;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory output cache of the conversion server: rendered pages as UTF-8 bytes, keyed by a
+ * SHA-256 hash of the JSON text they were rendered from.
+ * <p>
+ * A hit skips parsing and rendering of a body seen before; nothing is shared between different
+ * bodies. The cache is least-recently-used and bounded by entry count and by the bytes held.
+ * Pages are rendered outside the lock, so two threads missing on the same body may both render it.
+ */
+public final class RenderedPageCache {
+
+    /**
+     * Renders a page on a cache miss.
+     */
+    @FunctionalInterface
+    public interface PageLoader {
+        byte[] load() throws JsonHtmlConversionException;
+    }
+
+    private record ContentKey(String sha256) {
+    }
+
+    private final int maxEntries;
+    private final long maxRetainedBytes;
+    private final LinkedHashMap<ContentKey, byte[]> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long retainedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxEntries maximum number of cached pages, 0 disables caching
+     * @param maxRetainedBytes maximum number of page bytes held
+     */
+    public RenderedPageCache(int maxEntries, long maxRetainedBytes) {
+        if (maxEntries < 0 || maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Cache limits cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Returns the page for a JSON text, rendering it if no identical text was seen before.
+     */
+    public byte[] get(String jsonText, PageLoader loader) throws JsonHtmlConversionException {
+        ContentKey key = new ContentKey(sha256(jsonText));
+        synchronized (this) {
+            byte[] cached = pages.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        byte[] page = loader.load();
+        put(key, page);
+        return page;
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+        retainedBytes = 0;
+    }
+
+    private synchronized void put(ContentKey key, byte[] page) {
+        if (maxEntries == 0 || page.length > maxRetainedBytes) {
+            return;
+        }
+
+        byte[] previous = pages.put(key, page);
+        if (previous != null) {
+            retainedBytes -= previous.length;
+        }
+        retainedBytes += page.length;
+
+        Iterator<Map.Entry<ContentKey, byte[]>> eldest = pages.entrySet().iterator();
+        while (pages.size() > maxEntries || retainedBytes > maxRetainedBytes) {
+            retainedBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
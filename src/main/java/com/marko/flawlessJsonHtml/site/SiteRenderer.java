@@ -0,0 +1,201 @@
+package com.marko.flawlessJsonHtml.site;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.SharedHead;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.JsonTypeException;
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Renders a site document, one shared head and many page bodies, into one HTML file per page.
+ * <p>
+ * Expected JSON structure:
+ * {
+ *   "doctype": "html",
+ *   "language": "en",
+ *   "head": { ... },
+ *   "pages": { "index": { ...body... }, "about": { ...body... } }
+ * }
+ * <p>
+ * The head is rendered once into a {@link SharedHead}; the bodies are then rendered concurrently
+ * and each written after the head's bytes. A page equals the conversion of a document with the
+ * site's doctype, language and head and that page's body. A page that fails is recorded and does
+ * not stop the others.
+ */
+public class SiteRenderer {
+
+    private static final Logger LOGGER = Logger.getLogger(SiteRenderer.class.getName());
+
+    /**
+     * Opens the destination for one page's HTML.
+     */
+    @FunctionalInterface
+    public interface OutputFactory {
+        /**
+         * @param name the page's key in "pages"
+         * @return stream the renderer closes after writing the page
+         * @throws IOException if the output cannot be opened
+         * @throws IllegalArgumentException if the name cannot be mapped to an output
+         */
+        OutputStream open(String name) throws IOException;
+    }
+
+    /**
+     * A page that could not be rendered.
+     */
+    public record PageFailure(String name, String message) {
+    }
+
+    /**
+     * Outcome of rendering a site.
+     */
+    public record Summary(long renderedCount, List<PageFailure> failures, long durationNanos) {
+        public Summary {
+            failures = List.copyOf(failures);
+        }
+    }
+
+    private final JsonHtmlConverter converter;
+    private final int parallelism;
+
+    /**
+     * @param converter converter for the head and every page, shared by all workers
+     * @param parallelism number of pages rendered at once
+     */
+    public SiteRenderer(JsonHtmlConverter converter, int parallelism) {
+        if (converter == null) {
+            throw new IllegalArgumentException("Converter cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.converter = converter;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Renders every page of the site and waits for them to finish.
+     *
+     * @param site site document root
+     * @param outputs destination per page
+     * @return number of rendered pages, failures in page order and the total time
+     * @throws JsonHtmlConversionException if the site has no pages object or its head cannot be rendered
+     * @throws IllegalArgumentException if site or outputs is null
+     */
+    public Summary render(JsonNode site, OutputFactory outputs) throws JsonHtmlConversionException {
+        if (site == null || outputs == null) {
+            throw new IllegalArgumentException("Site and outputs cannot be null");
+        }
+        long start = System.nanoTime();
+        JsonNode pages = pages(site);
+        SharedHead head = converter.renderHead(site, ConversionMetrics.NOOP);
+        LOGGER.info("Rendered shared head of " + head.byteLength() + " bytes for " + pages.size() + " pages");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, pages.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>(pages.size());
+            for (int i = 0; i < pages.size(); i++) {
+                String name = pages.key(i);
+                JsonNode body = pages.value(i);
+                futures.add(executor.submit(() -> renderPage(head, name, body, outputs)));
+            }
+
+            long rendered = 0;
+            List<PageFailure> failures = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                    rendered++;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    LOGGER.warning("Page '" + pages.key(i) + "' failed: " + cause.getMessage());
+                    failures.add(new PageFailure(pages.key(i), cause.getMessage()));
+                }
+            }
+            return new Summary(rendered, failures, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IllegalStateException("Interrupted while rendering the site", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Void renderPage(SharedHead head, String name, JsonNode body, OutputFactory outputs)
+            throws JsonHtmlConversionException, IOException {
+        try (OutputStream out = new PageOutput(outputs, name)) {
+            converter.convertPage(head, body, out, ConversionMetrics.NOOP);
+        }
+        return null;
+    }
+
+    /**
+     * Opens a page's output on the first write. The converter renders a whole page before writing
+     * any of it, so a page that fails leaves no file behind and keeps the output of an earlier run.
+     */
+    private static final class PageOutput extends OutputStream {
+        private final OutputFactory outputs;
+        private final String name;
+        private OutputStream out;
+
+        PageOutput(OutputFactory outputs, String name) {
+            this.outputs = outputs;
+            this.name = name;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            open().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            open().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        private OutputStream open() throws IOException {
+            if (out == null) {
+                out = outputs.open(name);
+            }
+            return out;
+        }
+    }
+
+    private static JsonNode pages(JsonNode site) throws JsonHtmlConversionException {
+        if (!site.isObject()) {
+            throw new JsonHtmlConversionException("JSON root must be an object");
+        }
+        try {
+            return site.object("pages");
+        } catch (JSONException | JsonTypeException e) {
+            throw new JsonHtmlConversionException("Site needs a \"pages\" object of page bodies: " + e.getMessage(), e);
+        }
+    }
+}
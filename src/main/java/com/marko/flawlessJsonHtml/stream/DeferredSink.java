@@ -0,0 +1,122 @@
+package com.marko.flawlessJsonHtml.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Output sink that holds back content until its header is known.
+ * <p>
+ * An HTML opening tag can only be written once its attributes have been read,
+ * but in a streamed document the "attributes" key may follow some of the children.
+ * Children are buffered here until {@link #release(Header)} is called with the
+ * final header. If the buffer grows past the lookahead limit, the sink is
+ * released early with the default header and passes everything straight through.
+ * Enclosing sinks are released with it, outermost first, since the content would
+ * take each of them past the limit as well; it is then written once instead of being
+ * copied into every enclosing buffer.
+ */
+final class DeferredSink implements Appendable {
+
+    /**
+     * Writes the header that precedes the buffered content.
+     */
+    @FunctionalInterface
+    interface Header {
+        Header NONE = out -> { };
+
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    private final Appendable target;
+    private final int lookaheadLimit;
+    private final Header defaultHeader;
+    private StringBuilder buffer;
+    private boolean released;
+
+    /**
+     * @param defaultHeader header written when the sink has to be released before its real header is known
+     */
+    DeferredSink(Appendable target, int lookaheadLimit, Header defaultHeader) {
+        this.target = target;
+        this.lookaheadLimit = lookaheadLimit;
+        this.defaultHeader = defaultHeader;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Writes the given header followed by everything buffered so far, then switches to pass-through mode.
+     */
+    void release(Header header) throws IOException {
+        if (released) {
+            return;
+        }
+        released = true;
+        header.writeTo(target);
+        if (buffer != null) {
+            target.append(buffer);
+            buffer = null;
+        }
+    }
+
+    void release() throws IOException {
+        release(defaultHeader);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        if (released) {
+            target.append(csq);
+        } else {
+            buffer().append(csq);
+            checkLimit();
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        if (released) {
+            target.append(csq, start, end);
+        } else {
+            buffer().append(csq, start, end);
+            checkLimit();
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (released) {
+            target.append(c);
+        } else {
+            buffer().append(c);
+            checkLimit();
+        }
+        return this;
+    }
+
+    private StringBuilder buffer() {
+        if (buffer == null) {
+            buffer = new StringBuilder();
+        }
+        return buffer;
+    }
+
+    private void checkLimit() throws IOException {
+        if (buffer.length() > lookaheadLimit) {
+            Deque<DeferredSink> enclosing = new ArrayDeque<>();
+            for (Appendable out = target; out instanceof DeferredSink && !((DeferredSink) out).released;
+                 out = ((DeferredSink) out).target) {
+                enclosing.push((DeferredSink) out);
+            }
+            while (!enclosing.isEmpty()) {
+                enclosing.pop().release();
+            }
+            release();
+        }
+    }
+}
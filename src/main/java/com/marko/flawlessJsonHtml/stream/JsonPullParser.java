@@ -0,0 +1,468 @@
+package com.marko.flawlessJsonHtml.stream;
+
+import com.marko.flawlessJsonHtml.converter.ArrayTooLongException;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.InputTooLargeException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.NestingTooDeepException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Incremental pull parser for JSON documents.
+ * <p>
+ * Reads the input through a fixed-size character buffer and exposes it as a
+ * sequence of {@link Token}s, so only the current token is ever held in memory.
+ * Small subtrees can still be materialized on demand with {@link #readValue()}.
+ * Input size, nesting depth and array length are checked against {@link ConversionLimits}
+ * as the tokens are read, so an oversized document fails at the first token past a limit.
+ */
+public final class JsonPullParser implements Closeable {
+
+    /**
+     * Token types produced by {@link #next()}.
+     */
+    public enum Token {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, FIELD_NAME,
+        STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Deepest value {@link #readValue()} materializes, the nesting org.json itself parses and writes.
+     */
+    private static final int MAX_VALUE_DEPTH = 512;
+    private static final byte IN_OBJECT = 1;
+    private static final byte IN_ARRAY = 2;
+    private static final byte HAS_ELEMENT = 4;
+
+    private final Reader reader;
+    private final ConversionLimits limits;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long consumed;
+
+    private final StringBuilder text = new StringBuilder();
+    private Token current;
+
+    private byte[] stack = new byte[32];
+    private int[] arrayLengths = new int[32];
+    private int depth;
+    private boolean expectingValue;
+    private boolean rootDone;
+
+    public JsonPullParser(Reader reader) {
+        this(reader, ConversionLimits.UNLIMITED);
+    }
+
+    public JsonPullParser(Reader reader, ConversionLimits limits) {
+        if (reader == null || limits == null) {
+            throw new IllegalArgumentException("Reader and limits cannot be null");
+        }
+        this.reader = reader;
+        this.limits = limits;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the token that was read
+     * @throws IOException if reading fails
+     * @throws JsonHtmlConversionException if the input is not valid JSON
+     */
+    public Token next() throws IOException, JsonHtmlConversionException {
+        int c = skipWhitespace();
+
+        if (depth == 0) {
+            if (rootDone) {
+                if (c != -1) {
+                    throw error("Unexpected content after end of document");
+                }
+                return current = Token.END_DOCUMENT;
+            }
+            if (c == -1) {
+                throw error("JSON document is empty");
+            }
+            return current = readValue(c);
+        }
+
+        byte context = stack[depth - 1];
+
+        if ((context & IN_OBJECT) != 0) {
+            if (expectingValue) {
+                if (c != ':') {
+                    throw error("Expected ':' after field name");
+                }
+                expectingValue = false;
+                return current = readValue(skipWhitespace());
+            }
+            if (c == '}') {
+                return current = pop(Token.END_OBJECT);
+            }
+            if ((context & HAS_ELEMENT) != 0) {
+                if (c != ',') {
+                    throw error("Expected ',' or '}' in object");
+                }
+                c = skipWhitespace();
+            }
+            if (c != '"') {
+                throw error("Expected field name");
+            }
+            readString();
+            stack[depth - 1] |= HAS_ELEMENT;
+            expectingValue = true;
+            return current = Token.FIELD_NAME;
+        }
+
+        if (c == ']') {
+            return current = pop(Token.END_ARRAY);
+        }
+        if ((context & HAS_ELEMENT) != 0) {
+            if (c != ',') {
+                throw error("Expected ',' or ']' in array");
+            }
+            c = skipWhitespace();
+        }
+        if (++arrayLengths[depth - 1] > limits.maxArrayLength()) {
+            throw new ArrayTooLongException(limits.maxArrayLength());
+        }
+        stack[depth - 1] |= HAS_ELEMENT;
+        return current = readValue(c);
+    }
+
+    /**
+     * @return the most recently read token, or null before the first call to {@link #next()}
+     */
+    public Token current() {
+        return current;
+    }
+
+    /**
+     * @return text of the current field name, string or number token
+     */
+    public String text() {
+        return text.toString();
+    }
+
+    /**
+     * Returns the decoded text of the current token without copying it. The sequence is
+     * the parser's own buffer and changes with the next call to {@link #next()}.
+     *
+     * @return text of the current field name, string or number token
+     */
+    public CharSequence chars() {
+        return text;
+    }
+
+    /**
+     * @return nesting depth of the current position (0 at document level)
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Skips the current value. If positioned on a start token, consumes
+     * everything up to and including the matching end token.
+     */
+    public void skipValue() throws IOException, JsonHtmlConversionException {
+        if (current != Token.START_OBJECT && current != Token.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            if (next() == Token.END_DOCUMENT) {
+                throw error("Unexpected end of document");
+            }
+        }
+    }
+
+    /**
+     * Materializes the current value using org.json types. Intended for small
+     * subtrees such as attribute maps; large containers should be walked with {@link #next()}.
+     *
+     * @return JSONObject, JSONArray, String, Number, Boolean or {@link JSONObject#NULL}
+     * @throws JsonHtmlConversionException if the value is invalid or nested deeper than 512 levels
+     */
+    public Object readValue() throws IOException, JsonHtmlConversionException {
+        // Containers still being filled, innermost first, so nesting never deepens the call stack
+        Deque<Object> open = new ArrayDeque<>();
+        Deque<String> keys = new ArrayDeque<>();
+
+        while (true) {
+            Object value = switch (current) {
+                case START_OBJECT, START_ARRAY -> {
+                    if (open.size() == MAX_VALUE_DEPTH) {
+                        throw error("Value nested deeper than " + MAX_VALUE_DEPTH + " levels");
+                    }
+                    open.push(current == Token.START_OBJECT ? new JSONObject() : new JSONArray());
+                    yield null;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (open.isEmpty()) {
+                        throw error("Expected a value but found " + current);
+                    }
+                    yield open.pop();
+                }
+                case STRING -> text();
+                case NUMBER -> JSONObject.stringToValue(text());
+                case TRUE -> Boolean.TRUE;
+                case FALSE -> Boolean.FALSE;
+                case NULL -> JSONObject.NULL;
+                default -> throw error("Expected a value but found " + current);
+            };
+
+            if (value != null) {
+                if (open.isEmpty()) {
+                    return value;
+                }
+                Object container = open.peek();
+                if (container instanceof JSONObject) {
+                    ((JSONObject) container).put(keys.pop(), value);
+                } else {
+                    ((JSONArray) container).put(value);
+                }
+            }
+            if (next() == Token.FIELD_NAME) {
+                keys.push(text());
+                next();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Token readValue(int c) throws IOException, JsonHtmlConversionException {
+        switch (c) {
+            case '{' -> {
+                push(IN_OBJECT);
+                return Token.START_OBJECT;
+            }
+            case '[' -> {
+                push(IN_ARRAY);
+                return Token.START_ARRAY;
+            }
+            case '"' -> {
+                readString();
+                return scalar(Token.STRING);
+            }
+            case 't' -> {
+                expectLiteral("rue");
+                return scalar(Token.TRUE);
+            }
+            case 'f' -> {
+                expectLiteral("alse");
+                return scalar(Token.FALSE);
+            }
+            case 'n' -> {
+                expectLiteral("ull");
+                return scalar(Token.NULL);
+            }
+            case -1 -> throw error("Unexpected end of document");
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber(c);
+                    return scalar(Token.NUMBER);
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+            }
+        }
+    }
+
+    private Token scalar(Token token) {
+        if (depth == 0) {
+            rootDone = true;
+        }
+        return token;
+    }
+
+    private void push(byte context) throws NestingTooDeepException {
+        if (depth == limits.maxDepth()) {
+            throw new NestingTooDeepException(limits.maxDepth());
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            arrayLengths = Arrays.copyOf(arrayLengths, depth * 2);
+        }
+        arrayLengths[depth] = 0;
+        stack[depth++] = context;
+    }
+
+    private Token pop(Token token) {
+        depth--;
+        if (depth == 0) {
+            rootDone = true;
+        }
+        return token;
+    }
+
+    private void readString() throws IOException, JsonHtmlConversionException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            // Copy runs of plain characters in bulk
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+
+            char c = buffer[pos++];
+            if (c == '"') {
+                return;
+            }
+            if (c != '\\') {
+                throw error("Unescaped control character in string");
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append((char) escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> text.append(readUnicodeEscape());
+                default -> throw error("Invalid escape sequence");
+            }
+        }
+    }
+
+    private char readUnicodeEscape() throws IOException, JsonHtmlConversionException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    private void readNumber(int first) throws IOException, JsonHtmlConversionException {
+        text.setLength(0);
+        text.append((char) first);
+
+        int c = first == '-' ? appendNext() : first;
+        if (c == '0') {
+            c = appendNext();
+        } else if (isDigit(c)) {
+            c = appendDigits();
+        } else {
+            throw error("Invalid number");
+        }
+        if (c == '.') {
+            if (!isDigit(appendNext())) {
+                throw error("Invalid number");
+            }
+            c = appendDigits();
+        }
+        if (c == 'e' || c == 'E') {
+            c = appendNext();
+            if (c == '+' || c == '-') {
+                c = appendNext();
+            }
+            if (!isDigit(c)) {
+                throw error("Invalid number");
+            }
+            appendDigits();
+        }
+        // The last peeked character is not part of the number
+        text.setLength(text.length() - 1);
+        pos--;
+    }
+
+    private int appendNext() throws IOException, InputTooLargeException {
+        int c = read();
+        text.append((char) c);
+        return c;
+    }
+
+    private int appendDigits() throws IOException, InputTooLargeException {
+        int c;
+        do {
+            c = appendNext();
+        } while (isDigit(c));
+        return c;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void expectLiteral(String rest) throws IOException, JsonHtmlConversionException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException, InputTooLargeException {
+        while (true) {
+            int c = read();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Reads one character. At end of input returns -1 and still advances the
+     * position so that a following {@code pos--} stays consistent.
+     */
+    private int read() throws IOException, InputTooLargeException {
+        if (pos == limit && !fill()) {
+            pos++;
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException, InputTooLargeException {
+        // Keep the last character so a single step back is always possible
+        int keep = limit > 0 ? 1 : 0;
+        if (keep == 1) {
+            buffer[0] = buffer[limit - 1];
+        }
+        consumed += limit - keep;
+        pos = keep;
+        limit = keep;
+
+        int read = reader.read(buffer, keep, buffer.length - keep);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        if (consumed + limit > limits.maxInputBytes()) {
+            throw new InputTooLargeException(limits.maxInputBytes());
+        }
+        return true;
+    }
+
+    private JsonHtmlConversionException error(String message) {
+        return new JsonHtmlConversionException(message + " at character " + (consumed + pos));
+    }
+}
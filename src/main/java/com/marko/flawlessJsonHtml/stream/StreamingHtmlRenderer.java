@@ -0,0 +1,340 @@
+package com.marko.flawlessJsonHtml.stream;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.html.HtmlUtils;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import com.marko.flawlessJsonHtml.html.RenderContext;
+import com.marko.flawlessJsonHtml.html.TagDescriptor;
+import com.marko.flawlessJsonHtml.stream.JsonPullParser.Token;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Logger;
+
+/**
+ * Renders HTML directly from a {@link JsonPullParser} token stream.
+ * <p>
+ * Produces the same markup as {@link HtmlElementBuilder} without building the
+ * whole JSON tree or the whole HTML string. Only small leaf structures (attribute
+ * maps, meta tags and void elements) are materialized, and nesting is followed on a heap stack,
+ * so deep documents cannot overflow the thread stack. Differences to the tree based path:
+ * <ul>
+ *   <li>Elements are emitted in source order; body elements are not reordered semantically.</li>
+ *   <li>Memory stays bounded only when "doctype", "language" and "head" come before "body"
+ *   and "attributes" come before child elements. Out-of-order content is buffered up to
+ *   the lookahead limit; past it, a late key fails the conversion.</li>
+ * </ul>
+ */
+public class StreamingHtmlRenderer {
+
+    private static final String DEFAULT_LANGUAGE = "en";
+    private static final String DEFAULT_DOCTYPE = "html";
+
+    /**
+     * Default number of characters buffered while waiting for out-of-order keys.
+     */
+    public static final int DEFAULT_LOOKAHEAD_LIMIT = 64 * 1024;
+
+    private final HtmlElementBuilder elementBuilder;
+    private final OutputFormat format;
+    private final int lookaheadLimit;
+
+    private static final class Log {
+        private static final Logger LOGGER = Logger.getLogger(StreamingHtmlRenderer.class.getName());
+    }
+
+    public StreamingHtmlRenderer() {
+        this(new HtmlElementBuilder(), DEFAULT_LOOKAHEAD_LIMIT);
+    }
+
+    public StreamingHtmlRenderer(HtmlElementBuilder elementBuilder, int lookaheadLimit) {
+        if (elementBuilder == null) {
+            throw new IllegalArgumentException("Element builder cannot be null");
+        }
+        if (lookaheadLimit < 0) {
+            throw new IllegalArgumentException("Lookahead limit cannot be negative");
+        }
+        this.elementBuilder = elementBuilder;
+        this.format = elementBuilder.format();
+        this.lookaheadLimit = lookaheadLimit;
+    }
+
+    /**
+     * Streams a JSON document from the reader and writes the HTML to the output.
+     *
+     * @param input JSON source
+     * @param output HTML destination
+     * @throws IOException if reading or writing fails
+     * @throws JsonHtmlConversionException if the JSON is invalid or cannot be streamed
+     */
+    public void render(Reader input, Appendable output) throws IOException, JsonHtmlConversionException {
+        render(input, output, RenderContext.untracked());
+    }
+
+    /**
+     * Streams a JSON document from the reader and writes the HTML to the output, reporting to the given context.
+     *
+     * @see #render(Reader, Appendable)
+     */
+    public void render(Reader input, Appendable output, RenderContext context)
+            throws IOException, JsonHtmlConversionException {
+        if (context == null) {
+            throw new IllegalArgumentException("Render context cannot be null");
+        }
+        JsonPullParser parser = new JsonPullParser(input, context.limits());
+        if (parser.next() != Token.START_OBJECT) {
+            throw new JsonHtmlConversionException("JSON root must be an object");
+        }
+
+        try {
+            renderDocument(parser, output, context);
+        } catch (JSONException e) {
+            throw new JsonHtmlConversionException("Failed to convert JSON to HTML: " + e.getMessage(), e);
+        }
+
+        if (parser.next() != Token.END_DOCUMENT) {
+            throw new JsonHtmlConversionException("Unexpected content after end of document");
+        }
+    }
+
+    private void renderDocument(JsonPullParser parser, Appendable output, RenderContext context)
+            throws IOException, JsonHtmlConversionException {
+        context.element("html", 0);
+        Prologue prologue = new Prologue(format, context);
+        DeferredSink document = new DeferredSink(output, lookaheadLimit, prologue::writeTo);
+        DeferredSink body = null;
+        boolean headDone = false;
+
+        while (parser.next() == Token.FIELD_NAME) {
+            String key = parser.text();
+            parser.next();
+
+            switch (key) {
+                case "doctype" -> {
+                    requireOpen(document, key);
+                    prologue.doctype = optString(parser, DEFAULT_DOCTYPE);
+                }
+                case "language" -> {
+                    requireOpen(document, key);
+                    prologue.language = optString(parser, DEFAULT_LANGUAGE);
+                }
+                case "head" -> {
+                    if (body != null && body.isReleased()) {
+                        throw new JsonHtmlConversionException(
+                                "\"head\" must precede a large \"body\" in streaming mode");
+                    }
+                    requireObject(parser, key);
+                    document.append(format.indent(1)).append("<head>").append(format.lineEnd());
+                    context.element("head", 1);
+                    renderElements(parser, document, 2, context);
+                    document.append(format.indent(1)).append("</head>").append(format.lineEnd());
+                    headDone = true;
+                    if (body != null) {
+                        body.release(DeferredSink.Header.NONE);
+                    }
+                }
+                case "body" -> {
+                    requireObject(parser, key);
+                    body = new DeferredSink(document, lookaheadLimit, DeferredSink.Header.NONE);
+                    renderContainer(parser, "body", headDone ? document : body, 1, context);
+                    if (headDone) {
+                        body.release(DeferredSink.Header.NONE);
+                    }
+                }
+                default -> parser.skipValue();
+            }
+
+            if (prologue.isComplete()) {
+                document.release();
+            }
+        }
+
+        document.release();
+        if (body != null) {
+            body.release(DeferredSink.Header.NONE);
+        }
+        output.append("</html>");
+    }
+
+    private void renderElements(JsonPullParser parser, Appendable html, int indentLevel, RenderContext context)
+            throws IOException, JsonHtmlConversionException {
+        Deque<Frame> open = new ArrayDeque<>();
+        open.push(new Frame(null, html, indentLevel, null, false));
+        renderOpen(parser, open, context);
+    }
+
+    private void renderContainer(JsonPullParser parser, String tagName, Appendable html, int indentLevel,
+                                 RenderContext context) throws IOException, JsonHtmlConversionException {
+        Deque<Frame> open = new ArrayDeque<>();
+        openContainer(tagName, html, indentLevel, open, context);
+        renderOpen(parser, open, context);
+    }
+
+    /**
+     * Walks the open objects and arrays until the outermost one ends. Nesting is kept on a heap
+     * stack, so the depth of the input is bounded by its limits and the heap, not the thread stack.
+     */
+    private void renderOpen(JsonPullParser parser, Deque<Frame> open, RenderContext context)
+            throws IOException, JsonHtmlConversionException {
+        while (!open.isEmpty()) {
+            Frame frame = open.peek();
+            Token token = parser.next();
+
+            if (frame.array) {
+                if (token == Token.END_ARRAY) {
+                    open.pop();
+                } else {
+                    renderTag(parser, frame.tag.name(), frame.html, frame.indentLevel, open, context);
+                }
+            } else if (token != Token.FIELD_NAME) {
+                open.pop();
+                if (frame.tag != null) {
+                    frame.children.release();
+                    frame.html.append(format.indent(frame.indentLevel)).append(frame.tag.closeTag())
+                            .append(format.lineEnd());
+                }
+            } else {
+                String key = parser.text();
+                parser.next();
+                if (frame.tag != null && "attributes".equals(key)) {
+                    renderAttributes(parser, frame, context);
+                } else {
+                    int childLevel = frame.tag != null ? frame.indentLevel + 1 : frame.indentLevel;
+                    renderTag(parser, key, frame.children != null ? frame.children : frame.html, childLevel, open,
+                            context);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a scalar or leaf value in place, or opens a frame for the children of a container or array.
+     */
+    private void renderTag(JsonPullParser parser, String tagName, Appendable html, int indentLevel,
+                           Deque<Frame> open, RenderContext context) throws IOException, JsonHtmlConversionException {
+        switch (parser.current()) {
+            case STRING -> {
+                TagDescriptor tag = TagDescriptor.of(tagName);
+                html.append(format.indent(indentLevel)).append(tag.openTag());
+                context.escape(HtmlUtils.escapeContent(parser.chars(), html));
+                html.append(tag.closeTag()).append(format.lineEnd());
+                context.element(tagName, indentLevel);
+            }
+            case START_OBJECT -> {
+                TagDescriptor tag = TagDescriptor.of(tagName);
+                if (tag.isMeta() || tag.isSelfClosing()) {
+                    // Leaf structures are small, so reuse the tree based builder for them
+                    StringBuilder leaf = new StringBuilder();
+                    elementBuilder.buildTag(tagName, parser.readValue(), leaf, indentLevel, context);
+                    html.append(leaf);
+                } else {
+                    openContainer(tagName, html, indentLevel, open, context);
+                }
+            }
+            case START_ARRAY -> open.push(new Frame(TagDescriptor.of(tagName), html, indentLevel, null, true));
+            default -> Log.LOGGER.warning("Unsupported value type for tag '" + tagName + "': " + parser.current());
+        }
+    }
+
+    private void openContainer(String tagName, Appendable html, int indentLevel, Deque<Frame> open,
+                               RenderContext context) throws LimitExceededException {
+        context.element(tagName, indentLevel);
+        TagDescriptor tag = TagDescriptor.of(tagName);
+        String indent = format.indent(indentLevel);
+        DeferredSink children = new DeferredSink(html, lookaheadLimit,
+                out -> out.append(indent).append(tag.openTag()).append(format.lineEnd()));
+        open.push(new Frame(tag, html, indentLevel, children, false));
+    }
+
+    private void renderAttributes(JsonPullParser parser, Frame frame, RenderContext context)
+            throws IOException, JsonHtmlConversionException {
+        DeferredSink children = frame.children;
+        requireOpen(children, "attributes of <" + frame.tag.name() + ">");
+        Object value = parser.readValue();
+        JSONObject attributes = value instanceof JSONObject ? (JSONObject) value : null;
+        String indent = format.indent(frame.indentLevel);
+        children.release(out -> {
+            out.append(indent).append(frame.tag.openTagStart());
+            HtmlUtils.formatAttributes(attributes, out, context.metrics());
+            out.append(">").append(format.lineEnd());
+        });
+    }
+
+    /**
+     * An object or array whose members are still being read.
+     * <p>
+     * A container frame has a tag and writes its children through a deferred sink until its
+     * attributes are known; the members of head have no tag of their own and write straight to
+     * the output; an array frame repeats its tag for every item at its own indentation.
+     */
+    private static final class Frame {
+        private final TagDescriptor tag;
+        private final Appendable html;
+        private final int indentLevel;
+        private final DeferredSink children;
+        private final boolean array;
+
+        Frame(TagDescriptor tag, Appendable html, int indentLevel, DeferredSink children, boolean array) {
+            this.tag = tag;
+            this.html = html;
+            this.indentLevel = indentLevel;
+            this.children = children;
+            this.array = array;
+        }
+    }
+
+    private static String optString(JsonPullParser parser, String defaultValue)
+            throws IOException, JsonHtmlConversionException {
+        return switch (parser.current()) {
+            case NULL -> defaultValue;
+            case STRING, NUMBER -> parser.text();
+            default -> parser.readValue().toString();
+        };
+    }
+
+    private static void requireObject(JsonPullParser parser, String key) throws JsonHtmlConversionException {
+        if (parser.current() != Token.START_OBJECT) {
+            throw new JsonHtmlConversionException("JSONObject[\"" + key + "\"] is not a JSONObject");
+        }
+    }
+
+    private static void requireOpen(DeferredSink sink, String key) throws JsonHtmlConversionException {
+        if (sink.isReleased()) {
+            throw new JsonHtmlConversionException(
+                    "Key '" + key + "' appeared after the streaming lookahead limit was exceeded");
+        }
+    }
+
+    /**
+     * Document header values collected from the root object.
+     */
+    private static final class Prologue {
+        private final OutputFormat format;
+        private final RenderContext context;
+        private String doctype;
+        private String language;
+
+        Prologue(OutputFormat format, RenderContext context) {
+            this.format = format;
+            this.context = context;
+        }
+
+        boolean isComplete() {
+            return doctype != null && language != null;
+        }
+
+        void writeTo(Appendable out) throws IOException {
+            out.append("<!DOCTYPE ").append(doctype != null ? doctype : DEFAULT_DOCTYPE).append(">")
+                    .append(format.lineEnd());
+            out.append("<html lang=\"");
+            context.escape(HtmlUtils.escapeAttribute(language != null ? language : DEFAULT_LANGUAGE, out));
+            out.append("\">").append(format.lineEnd());
+        }
+    }
+}
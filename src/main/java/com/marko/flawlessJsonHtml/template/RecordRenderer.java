@@ -0,0 +1,121 @@
+package com.marko.flawlessJsonHtml.template;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Renders one compiled template against a stream of data records.
+ * <p>
+ * Records are read as JSON lines, one object per line; blank lines are skipped.
+ * Each record is checked for all placeholder values before its output is opened, so a
+ * bad record produces no file and does not stop the remaining records.
+ */
+public class RecordRenderer {
+
+    private static final Logger LOGGER = Logger.getLogger(RecordRenderer.class.getName());
+
+    /**
+     * Opens the destination for one record's HTML.
+     */
+    @FunctionalInterface
+    public interface OutputFactory {
+        /**
+         * @param lineNumber 1-based line of the record in the input
+         * @param record the parsed record
+         * @return stream the caller closes after rendering
+         * @throws IOException if the output cannot be opened
+         * @throws IllegalArgumentException if the record cannot be mapped to an output
+         */
+        OutputStream open(long lineNumber, JSONObject record) throws IOException;
+    }
+
+    /**
+     * A record that could not be rendered.
+     */
+    public record RecordFailure(long lineNumber, String message) {
+    }
+
+    /**
+     * Outcome of rendering a record stream.
+     */
+    public record Summary(long renderedCount, List<RecordFailure> failures) {
+        public Summary {
+            failures = List.copyOf(failures);
+        }
+    }
+
+    /**
+     * Renders the plan once per record.
+     *
+     * @param plan compiled template
+     * @param records JSON lines input
+     * @param outputs destination per record
+     * @return number of rendered records and failures
+     * @throws IOException if reading the records fails
+     */
+    public Summary render(RenderPlan plan, BufferedReader records, OutputFactory outputs) throws IOException {
+        long rendered = 0;
+        long lineNumber = 0;
+        List<RecordFailure> failures = new ArrayList<>();
+
+        String line;
+        while ((line = records.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                JSONObject record = new JSONObject(line);
+                checkValues(plan, record);
+                try (OutputStream out = outputs.open(lineNumber, record)) {
+                    plan.writeTo(out, name -> valueOf(record, name));
+                }
+                rendered++;
+            } catch (JSONException | IllegalArgumentException | IOException e) {
+                LOGGER.warning("Record on line " + lineNumber + " failed: " + e.getMessage());
+                failures.add(new RecordFailure(lineNumber, e.getMessage()));
+            }
+        }
+
+        return new Summary(rendered, failures);
+    }
+
+    private static void checkValues(RenderPlan plan, JSONObject record) {
+        for (RenderPlan.Slot slot : plan.slots()) {
+            if (lookup(record, slot.name()) == null) {
+                throw new IllegalArgumentException("No value for placeholder '" + slot.name() + "'");
+            }
+        }
+    }
+
+    private static String valueOf(JSONObject record, String name) {
+        Object value = lookup(record, name);
+        return value == null || JSONObject.NULL.equals(value) ? null : value.toString();
+    }
+
+    /**
+     * Resolves a dotted name such as {@code product.title} against nested objects.
+     */
+    private static Object lookup(JSONObject record, String name) {
+        Object current = record;
+        int start = 0;
+        while (start <= name.length()) {
+            if (!(current instanceof JSONObject)) {
+                return null;
+            }
+            int dot = name.indexOf('.', start);
+            int end = dot < 0 ? name.length() : dot;
+            current = ((JSONObject) current).opt(name.substring(start, end));
+            start = end + 1;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,163 @@
+package com.marko.flawlessJsonHtml.template;
+
+import com.marko.flawlessJsonHtml.html.HtmlUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Immutable, precompiled form of an HTML page.
+ * <p>
+ * A plan is a flat sequence of already escaped static chunks with a slot between
+ * each pair of chunks. Rendering is a single loop that copies chunks and writes
+ * escaped slot values; no JSON is inspected. Chunks are kept both as Strings and
+ * as UTF-8 bytes, so byte output needs no re-encoding of the static parts.
+ */
+public final class RenderPlan {
+
+    /**
+     * A dynamic value inserted between two static chunks.
+     *
+     * @param name placeholder name
+     * @param attribute whether the value sits inside an attribute and needs attribute escaping
+     */
+    public record Slot(String name, boolean attribute) {
+    }
+
+    /**
+     * Supplies slot values while a plan is rendered.
+     */
+    @FunctionalInterface
+    public interface SlotValues {
+        /**
+         * @return the unescaped value for the slot, or null to leave it empty
+         */
+        String valueOf(String name);
+    }
+
+    private final String[] chunks;
+    private final byte[][] encodedChunks;
+    private final Slot[] slots;
+    private final int staticLength;
+
+    private RenderPlan(List<String> chunks, List<Slot> slots) {
+        if (chunks.size() != slots.size() + 1) {
+            throw new IllegalArgumentException("A plan needs exactly one more chunk than slots");
+        }
+        this.chunks = chunks.toArray(new String[0]);
+        this.slots = slots.toArray(new Slot[0]);
+        this.encodedChunks = new byte[this.chunks.length][];
+
+        int length = 0;
+        for (int i = 0; i < this.chunks.length; i++) {
+            encodedChunks[i] = this.chunks[i].getBytes(StandardCharsets.UTF_8);
+            length += this.chunks[i].length();
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Creates a plan from chunks and the slots separating them.
+     */
+    public static RenderPlan of(List<String> chunks, List<Slot> slots) {
+        return new RenderPlan(chunks, slots);
+    }
+
+    public boolean isStatic() {
+        return slots.length == 0;
+    }
+
+    public List<Slot> slots() {
+        return List.of(slots);
+    }
+
+    /**
+     * @return number of characters in the static chunks, a lower bound for the output size
+     */
+    public int staticLength() {
+        return staticLength;
+    }
+
+    /**
+     * @return approximate heap footprint of the plan in bytes
+     */
+    public long retainedSize() {
+        long size = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            size += 2L * chunks[i].length() + encodedChunks[i].length;
+        }
+        return size;
+    }
+
+    /**
+     * Renders a plan without slots.
+     *
+     * @throws IllegalStateException if the plan has slots
+     */
+    public void render(Appendable out) throws IOException {
+        render(out, name -> {
+            throw new IllegalStateException("No value supplied for slot '" + name + "'");
+        });
+    }
+
+    /**
+     * Renders the plan, escaping each slot value for its position.
+     */
+    public void render(Appendable out, SlotValues values) throws IOException {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(chunks[i]);
+            writeSlot(slots[i], values, out);
+        }
+        out.append(chunks[slots.length]);
+    }
+
+    /**
+     * Renders the plan to a String.
+     */
+    public String render(SlotValues values) {
+        StringBuilder html = new StringBuilder(staticLength + 16 * slots.length);
+        try {
+            render(html, values);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder cannot fail", e);
+        }
+        return html.toString();
+    }
+
+    /**
+     * Writes the plan as UTF-8, copying the pre-encoded static chunks directly.
+     */
+    public void writeTo(OutputStream out, SlotValues values) throws IOException {
+        StringBuilder slot = slots.length > 0 ? new StringBuilder() : null;
+        for (int i = 0; i < slots.length; i++) {
+            out.write(encodedChunks[i]);
+            slot.setLength(0);
+            writeSlot(slots[i], values, slot);
+            out.write(slot.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(encodedChunks[slots.length]);
+    }
+
+    /**
+     * Writes a plan without slots as UTF-8.
+     *
+     * @throws IllegalStateException if the plan has slots
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (!isStatic()) {
+            throw new IllegalStateException("Plan has slots; supply values to render it");
+        }
+        out.write(encodedChunks[0]);
+    }
+
+    private static void writeSlot(Slot slot, SlotValues values, Appendable out) throws IOException {
+        String value = values.valueOf(slot.name());
+        if (slot.attribute()) {
+            HtmlUtils.escapeAttribute(value, out);
+        } else {
+            HtmlUtils.escapeContent(value, out);
+        }
+    }
+}
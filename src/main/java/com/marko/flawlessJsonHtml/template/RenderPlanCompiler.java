@@ -0,0 +1,106 @@
+package com.marko.flawlessJsonHtml.template;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles JSON page templates into {@link RenderPlan}s.
+ * <p>
+ * The tree is walked once through {@link JsonHtmlConverter}; executing the
+ * resulting plan never touches the JSON again. Templates may contain
+ * {@code {{name}}} placeholders in text and attribute values, which become slots.
+ * Placeholders survive escaping unchanged, so they are located in the rendered markup.
+ */
+public class RenderPlanCompiler {
+
+    private static final String PLACEHOLDER_OPEN = "{{";
+    private static final String PLACEHOLDER_CLOSE = "}}";
+    private static final Pattern PLACEHOLDER_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*(\\.[A-Za-z_][A-Za-z0-9_-]*)*");
+
+    private final JsonHtmlConverter converter;
+
+    public RenderPlanCompiler(JsonHtmlConverter converter) {
+        if (converter == null) {
+            throw new IllegalArgumentException("Converter cannot be null");
+        }
+        this.converter = converter;
+    }
+
+    /**
+     * Compiles a JSON page template, turning each {@code {{name}}} placeholder into a slot.
+     * Names may be dotted paths such as {@code product.title}.
+     *
+     * @param root the JSON template to compile
+     * @return render plan with one slot per placeholder occurrence
+     * @throws JsonHtmlConversionException if conversion fails or a placeholder is malformed
+     *         or used outside text and attribute values
+     */
+    public RenderPlan compileTemplate(JSONObject root) throws JsonHtmlConversionException {
+        return compileTemplate(converter.convert(root));
+    }
+
+    /**
+     * Compiles a page template parsed by any {@link com.marko.flawlessJsonHtml.model.JsonBackend}.
+     *
+     * @see #compileTemplate(JSONObject)
+     */
+    public RenderPlan compileTemplate(JsonNode root) throws JsonHtmlConversionException {
+        return compileTemplate(converter.convert(root, ConversionMetrics.NOOP));
+    }
+
+    private RenderPlan compileTemplate(String html) throws JsonHtmlConversionException {
+
+        List<String> chunks = new ArrayList<>();
+        List<RenderPlan.Slot> slots = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        boolean inTag = false;
+        boolean inQuote = false;
+
+        for (int i = 0; i < html.length(); i++) {
+            if (html.startsWith(PLACEHOLDER_OPEN, i)) {
+                int end = html.indexOf(PLACEHOLDER_CLOSE, i + PLACEHOLDER_OPEN.length());
+                String name = end < 0 ? "" : html.substring(i + PLACEHOLDER_OPEN.length(), end).strip();
+                if (!PLACEHOLDER_NAME.matcher(name).matches()) {
+                    throw new JsonHtmlConversionException("Malformed placeholder near: " + excerpt(html, i));
+                }
+                if (inTag && !inQuote) {
+                    throw new JsonHtmlConversionException("Placeholder {{" + name
+                            + "}} is only allowed in text or attribute values, found in: " + excerpt(html, i));
+                }
+
+                chunks.add(chunk.toString());
+                slots.add(new RenderPlan.Slot(name, inTag));
+                chunk.setLength(0);
+                i = end + PLACEHOLDER_CLOSE.length() - 1;
+                continue;
+            }
+
+            // Generated markup escapes '<', '>' and '"' in values, so these always delimit tags
+            char c = html.charAt(i);
+            if (!inTag && c == '<') {
+                inTag = true;
+            } else if (inTag && !inQuote && c == '>') {
+                inTag = false;
+            } else if (inTag && c == '"') {
+                inQuote = !inQuote;
+            }
+            chunk.append(c);
+        }
+
+        chunks.add(chunk.toString());
+        return RenderPlan.of(chunks, slots);
+    }
+
+    private static String excerpt(String html, int index) {
+        int lineStart = html.lastIndexOf('\n', index) + 1;
+        int lineEnd = html.indexOf('\n', index);
+        return html.substring(lineStart, lineEnd < 0 ? html.length() : lineEnd).strip();
+    }
+}
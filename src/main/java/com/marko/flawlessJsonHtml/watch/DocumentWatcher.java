@@ -0,0 +1,141 @@
+package com.marko.flawlessJsonHtml.watch;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.io.AtomicFiles;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watches one JSON file and rewrites its HTML output whenever the file is saved.
+ * <p>
+ * Uses a {@link WatchService} on the input's directory and an {@link IncrementalHtmlRenderer},
+ * so each save re-renders only the changed subtrees. Invalid intermediate saves are logged
+ * and the last good output is left in place.
+ */
+public class DocumentWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(DocumentWatcher.class.getName());
+
+    /**
+     * Editors often save in several writes; events arriving within this window are merged.
+     */
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    /**
+     * Notified after each successful update.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onUpdate(IncrementalHtmlRenderer.Update update, long durationNanos);
+    }
+
+    private final IncrementalHtmlRenderer renderer;
+    private final Path inputFile;
+    private final Path outputFile;
+
+    public DocumentWatcher(IncrementalHtmlRenderer renderer, Path inputFile, Path outputFile) {
+        if (renderer == null || inputFile == null || outputFile == null) {
+            throw new IllegalArgumentException("Renderer, input and output cannot be null");
+        }
+        this.renderer = renderer;
+        this.inputFile = inputFile.toAbsolutePath();
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Reads the input, re-renders what changed and rewrites the output if it differs.
+     *
+     * @return counts of rendered and reused fragments
+     * @throws IOException if reading or writing fails
+     * @throws JsonHtmlConversionException if the input is invalid
+     */
+    public IncrementalHtmlRenderer.Update update() throws IOException, JsonHtmlConversionException {
+        JSONObject root;
+        try {
+            root = new JSONObject(Files.readString(inputFile));
+        } catch (JSONException e) {
+            throw new JsonHtmlConversionException(
+                    "Invalid JSON format in file: " + inputFile + ". " + e.getMessage(), e);
+        }
+
+        IncrementalHtmlRenderer.Update update = renderer.render(root);
+        if (update.changed() || !Files.exists(outputFile)) {
+            // Replaced rather than truncated, so readers never see a half-written page
+            AtomicFiles.replace(outputFile, temporary -> {
+                try (Writer writer = Files.newBufferedWriter(temporary)) {
+                    renderer.writeTo(writer);
+                }
+            });
+        }
+        return update;
+    }
+
+    /**
+     * Blocks and updates the output on every change of the input until the thread is interrupted.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    public void watch(Listener listener) throws IOException {
+        Path directory = inputFile.getParent();
+        Path fileName = inputFile.getFileName();
+
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key, fileName);
+                if (!changed) {
+                    continue;
+                }
+
+                // Merge the remaining writes of the same save
+                WatchKey more;
+                while ((more = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(more, fileName);
+                }
+
+                long start = System.nanoTime();
+                try {
+                    IncrementalHtmlRenderer.Update update = update();
+                    listener.onUpdate(update, System.nanoTime() - start);
+                } catch (JsonHtmlConversionException | IOException e) {
+                    LOGGER.warning("Keeping previous output, update failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consumes the events of a key.
+     *
+     * @return whether any event concerns the input file
+     */
+    private static boolean drain(WatchKey key, Path fileName) throws IOException {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            throw new IOException("Watched directory is no longer accessible: " + key.watchable());
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,250 @@
+package com.marko.flawlessJsonHtml.watch;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.html.HtmlUtils;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders successive versions of one document, re-rendering only the subtrees that changed.
+ * <p>
+ * The output is kept as a list of fragments, one per top-level child of "head" and "body"
+ * (one per item when the child is an array). Each fragment is cached under its tag name and a
+ * 64-bit hash of its JSON subtree, together with the subtree's JSON text. The hash is computed
+ * by walking the subtree; the text is only serialized again when a lookup finds a fragment with
+ * the same hash, so that a hash collision cannot splice in another subtree's markup. An edit
+ * re-renders only the fragments whose content changed; all other fragments, including ones that
+ * merely moved, are spliced in from the previous render.
+ * The assembled output is identical to {@link JsonHtmlConverter#convert(JSONObject)}.
+ * <p>
+ * Not thread-safe; intended for a single watch loop.
+ */
+public class IncrementalHtmlRenderer {
+
+    private static final String DEFAULT_LANGUAGE = "en";
+    private static final String DEFAULT_DOCTYPE = "html";
+    private static final int FRAGMENT_INDENT_LEVEL = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Outcome of one render.
+     *
+     * @param renderedFragments fragments rendered from scratch
+     * @param reusedFragments fragments taken from the previous render
+     * @param changed whether the output differs from the previous render
+     */
+    public record Update(int renderedFragments, int reusedFragments, boolean changed) {
+    }
+
+    private record FragmentKey(String tagName, long hash) {
+    }
+
+    /**
+     * Rendered markup of a subtree and the subtree's JSON text it was rendered from.
+     */
+    private record Fragment(String source, String html) {
+
+        boolean renders(Object value) {
+            return source.equals(JSONObject.valueToString(value));
+        }
+    }
+
+    private final HtmlElementBuilder elementBuilder;
+    private Map<FragmentKey, Fragment> fragments = new HashMap<>();
+    private List<String> document = List.of();
+
+    public IncrementalHtmlRenderer() {
+        this(new HtmlElementBuilder());
+    }
+
+    public IncrementalHtmlRenderer(HtmlElementBuilder elementBuilder) {
+        if (elementBuilder == null) {
+            throw new IllegalArgumentException("Element builder cannot be null");
+        }
+        this.elementBuilder = elementBuilder;
+    }
+
+    /**
+     * Renders a new version of the document, reusing fragments of the previous version.
+     *
+     * @param root the JSON object to render
+     * @return counts of rendered and reused fragments
+     * @throws JsonHtmlConversionException if conversion fails; the previous output is kept
+     * @throws IllegalArgumentException if root is null
+     */
+    public Update render(JSONObject root) throws JsonHtmlConversionException {
+        if (root == null) {
+            throw new IllegalArgumentException("JSON root cannot be null");
+        }
+
+        Pass pass = new Pass(fragments);
+        OutputFormat format = elementBuilder.format();
+        try {
+            StringBuilder prologue = new StringBuilder();
+            prologue.append("<!DOCTYPE ").append(root.optString("doctype", DEFAULT_DOCTYPE)).append(">")
+                    .append(format.lineEnd());
+            prologue.append("<html lang=\"");
+            HtmlUtils.escapeAttribute(root.optString("language", DEFAULT_LANGUAGE), prologue);
+            prologue.append("\">").append(format.lineEnd());
+            pass.parts.add(prologue.toString());
+
+            if (root.has("head")) {
+                JSONObject head = root.getJSONObject("head");
+                pass.parts.add(format.indent(1) + "<head>" + format.lineEnd());
+                for (Iterator<String> it = head.keys(); it.hasNext();) {
+                    String tagName = it.next();
+                    pass.addChild(tagName, head.get(tagName));
+                }
+                pass.parts.add(format.indent(1) + "</head>" + format.lineEnd());
+            }
+
+            if (root.has("body")) {
+                JSONObject body = root.getJSONObject("body");
+                StringBuilder open = new StringBuilder(format.indent(1)).append("<body");
+                HtmlUtils.formatAttributes(body.optJSONObject("attributes"), open);
+                pass.parts.add(open.append(">").append(format.lineEnd()).toString());
+                for (String tagName : elementBuilder.orderBodyElements(body)) {
+                    pass.addChild(tagName, body.get(tagName));
+                }
+                pass.parts.add(format.indent(1) + "</body>" + format.lineEnd());
+            }
+            pass.parts.add("</html>");
+        } catch (JSONException e) {
+            throw new JsonHtmlConversionException("Failed to convert JSON to HTML: " + e.getMessage(), e);
+        }
+
+        // Reused fragments are the same instances, so comparing them is mostly reference checks
+        boolean changed = !pass.parts.equals(document);
+        fragments = pass.used;
+        document = pass.parts;
+        return new Update(pass.rendered, pass.reused, changed);
+    }
+
+    /**
+     * Writes the most recently rendered document.
+     */
+    public void writeTo(Writer out) throws IOException {
+        for (String part : document) {
+            out.write(part);
+        }
+    }
+
+    /**
+     * @return the most recently rendered document
+     */
+    public String html() {
+        return String.join("", document);
+    }
+
+    /**
+     * @return number of cached fragments
+     */
+    public int fragmentCount() {
+        return fragments.size();
+    }
+
+    /**
+     * State of one render. Only fragments used by this render survive into the next one.
+     */
+    private final class Pass {
+        private final Map<FragmentKey, Fragment> previous;
+        private final Map<FragmentKey, Fragment> used = new HashMap<>();
+        private final List<String> parts = new ArrayList<>();
+        private int rendered;
+        private int reused;
+
+        Pass(Map<FragmentKey, Fragment> previous) {
+            this.previous = previous;
+        }
+
+        void addChild(String tagName, Object value) throws JSONException, LimitExceededException {
+            if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                // Array items render as sibling tags, so each one is its own fragment
+                for (int i = 0; i < array.length(); i++) {
+                    addFragment(tagName, array.get(i));
+                }
+            } else {
+                addFragment(tagName, value);
+            }
+        }
+
+        private void addFragment(String tagName, Object value) throws JSONException, LimitExceededException {
+            FragmentKey key = new FragmentKey(tagName, hash(value, FNV_OFFSET));
+            Fragment fragment = used.get(key);
+            if (fragment == null || !fragment.renders(value)) {
+                fragment = previous.get(key);
+                if (fragment == null || !fragment.renders(value)) {
+                    StringBuilder html = new StringBuilder();
+                    elementBuilder.buildTag(tagName, value, html, FRAGMENT_INDENT_LEVEL);
+                    fragment = new Fragment(JSONObject.valueToString(value), html.toString());
+                    rendered++;
+                } else {
+                    reused++;
+                }
+                used.put(key, fragment);
+            } else {
+                reused++;
+            }
+            parts.add(fragment.html());
+        }
+    }
+
+    /**
+     * Hashes a JSON subtree. Object keys are visited in iteration order, which is also the order
+     * they are rendered in, and every key and string is prefixed with its length, so moving text
+     * across a key or string boundary changes the hash. Equal hashes still do not prove equal
+     * subtrees; callers compare the JSON text as well.
+     */
+    private static long hash(Object value, long hash) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            hash = mix(hash, '{');
+            for (Iterator<String> it = object.keys(); it.hasNext();) {
+                String key = it.next();
+                hash = hash(object.opt(key), mix(hashChars(key, hash), ':'));
+            }
+            return mix(hash, '}');
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            hash = mix(hash, '[');
+            for (int i = 0; i < array.length(); i++) {
+                hash = hash(array.opt(i), hash);
+            }
+            return mix(hash, ']');
+        }
+        if (value instanceof String) {
+            return mix(hashChars((String) value, mix(hash, '"')), '"');
+        }
+        // Numbers, booleans and null are told apart by type as well as text
+        return hashChars(String.valueOf(value), mix(hash, value == null ? 0 : value.getClass().hashCode()));
+    }
+
+    private static long hashChars(String text, long hash) {
+        hash = mix(hash, text.length());
+        for (int i = 0; i < text.length(); i++) {
+            hash = mix(hash, text.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+}
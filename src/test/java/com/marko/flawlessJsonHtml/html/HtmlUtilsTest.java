@@ -0,0 +1,140 @@
+package com.marko.flawlessJsonHtml.html;
+
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.model.FlatJsonDocument;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks the single-pass escapers against the replace chains they replaced, through every
+ * entry point: strings, builders, other sinks and document values parsed from JSON source.
+ */
+class HtmlUtilsTest {
+
+    static Stream<String> inputs() {
+        return Stream.of(
+                "",
+                "plain text",
+                "&",
+                "<",
+                ">",
+                "\"",
+                "'",
+                "a & b < c > d",
+                "<script>alert(\"x\")</script>",
+                "it's \"quoted\"",
+                "&amp; &lt; &gt; &quot; &#39;",
+                "&&&&",
+                "<<>>",
+                "\uD83D\uDE00 & \uD83D\uDC4D",
+                "\uD83D\uDE00<\uD83D\uDE00",
+                "caf\u00E9 \u00FC\u00DF \u4E2D\u6587",
+                "line\nbreak\ttab",
+                "trailing &",
+                "& leading",
+                "x".repeat(1000) + "&" + "y".repeat(1000));
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void escapeContentMatchesReplaceChain(String input) throws IOException {
+        String expected = legacyContent(input);
+        boolean changed = !expected.equals(input);
+
+        assertEquals(expected, HtmlUtils.escapeContent(input));
+
+        StringBuilder builder = new StringBuilder("prefix:");
+        assertEquals(changed, HtmlUtils.escapeContent(input, builder));
+        assertEquals("prefix:" + expected, builder.toString());
+
+        StringWriter writer = new StringWriter();
+        assertEquals(changed, HtmlUtils.escapeContent(input, (Appendable) writer));
+        assertEquals(expected, writer.toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void escapeAttributeMatchesReplaceChain(String input) throws IOException {
+        String expected = legacyAttribute(input);
+        boolean changed = !expected.equals(input);
+
+        assertEquals(expected, HtmlUtils.escapeAttribute(input));
+
+        StringBuilder builder = new StringBuilder("prefix:");
+        assertEquals(changed, HtmlUtils.escapeAttribute(input, builder));
+        assertEquals("prefix:" + expected, builder.toString());
+
+        StringWriter writer = new StringWriter();
+        assertEquals(changed, HtmlUtils.escapeAttribute(input, (Appendable) writer));
+        assertEquals(expected, writer.toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void escapesDocumentValuesFromJsonSource(String input) throws JsonHtmlConversionException, IOException {
+        // JSONObject.quote writes \" \\ \n \t and, after '<', "\/", so the slice path decodes escapes
+        JsonNode value = FlatJsonDocument.parse("{\"v\":" + JSONObject.quote(input) + "}").root().get("v");
+
+        StringBuilder content = new StringBuilder();
+        assertEquals(!legacyContent(input).equals(input), HtmlUtils.escapeContent(value, content));
+        assertEquals(legacyContent(input), content.toString());
+
+        StringBuilder attribute = new StringBuilder();
+        assertEquals(!legacyAttribute(input).equals(input), HtmlUtils.escapeAttribute(value, attribute));
+        assertEquals(legacyAttribute(input), attribute.toString());
+
+        StringWriter writer = new StringWriter();
+        HtmlUtils.escapeAttribute(value, (Appendable) writer);
+        assertEquals(legacyAttribute(input), writer.toString());
+    }
+
+    @Test
+    void decodesUnicodeEscapesBeforeEscapingHtml() throws JsonHtmlConversionException {
+        JsonNode value = FlatJsonDocument.parse("{\"v\":\"\\u0026\\u003c \\ud83d\\ude00 \\u0027\"}").root().get("v");
+
+        StringBuilder content = new StringBuilder();
+        HtmlUtils.escapeContent(value, content);
+        assertEquals("&amp;&lt; \uD83D\uDE00 '", content.toString());
+
+        StringBuilder attribute = new StringBuilder();
+        HtmlUtils.escapeAttribute(value, attribute);
+        assertEquals("&amp;&lt; \uD83D\uDE00 &#39;", attribute.toString());
+    }
+
+    @Test
+    void returnsSameInstanceWhenNothingNeedsEscaping() {
+        String text = "nothing to escape \uD83D\uDE00";
+        assertSame(text, HtmlUtils.escapeContent(text));
+        assertSame(text, HtmlUtils.escapeAttribute(text));
+    }
+
+    @Test
+    void treatsNullAsEmpty() throws IOException {
+        assertEquals("", HtmlUtils.escapeContent(null));
+        assertEquals("", HtmlUtils.escapeAttribute(null));
+
+        StringBuilder builder = new StringBuilder();
+        assertEquals(false, HtmlUtils.escapeContent((CharSequence) null, builder));
+        assertEquals(false, HtmlUtils.escapeAttribute((CharSequence) null, (Appendable) builder));
+        assertEquals("", builder.toString());
+    }
+
+    private static String legacyContent(String content) {
+        return content.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String legacyAttribute(String attribute) {
+        return attribute.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,164 @@
+package com.marko.flawlessJsonHtml.html;
+
+import com.marko.flawlessJsonHtml.converter.ArrayTooLongException;
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.converter.NestingTooDeepException;
+import com.marko.flawlessJsonHtml.converter.OutputTooLargeException;
+import com.marko.flawlessJsonHtml.converter.TooManyElementsException;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.FlatJsonDocument;
+import com.marko.flawlessJsonHtml.model.JsonNode;
+import com.marko.flawlessJsonHtml.model.OrgJsonNode;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that splitting wide sibling lists across a pool changes nothing: the same bytes for
+ * documents that render, and the same failure for documents that exceed a limit part way
+ * through a chunk.
+ */
+class ParallelRenderingTest {
+
+    /** Wider than the threshold, so the body list is split into many chunks. */
+    private static final int ITEMS = 6 * HtmlElementBuilder.DEFAULT_PARALLEL_THRESHOLD;
+    /** An item well inside one of the middle chunks. */
+    private static final int MARKED_ITEM = ITEMS / 2 + 7;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        // A pool of its own, so the work is split even on a single-core machine
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(OutputFormat.class)
+    void wideDocumentRendersIdentically(OutputFormat format) throws JsonHtmlConversionException {
+        JsonNode org = OrgJsonNode.of(new JSONObject(document("{\"b\":\"x\"}")));
+        assertEquals(render(sequential(format, ConversionLimits.UNLIMITED), org),
+                render(parallel(format, ConversionLimits.UNLIMITED), org));
+        assertEquals(render(sequential(format, ConversionLimits.DEFAULT), org),
+                render(parallel(format, ConversionLimits.DEFAULT), org));
+    }
+
+    @Test
+    void wideObjectRendersIdentically() throws JsonHtmlConversionException {
+        // Repeated keys are kept by the native model, so one element can have thousands of children
+        StringBuilder items = new StringBuilder("{\"body\":{\"ul\":{");
+        for (int i = 0; i < ITEMS; i++) {
+            items.append(i == 0 ? "" : ",").append("\"li\":\"item ").append(i).append(" <&>\"");
+        }
+        JsonNode root = FlatJsonDocument.parse(items.append("}}}").toString()).root();
+
+        assertEquals(render(sequential(OutputFormat.PRETTY, ConversionLimits.DEFAULT), root),
+                render(parallel(OutputFormat.PRETTY, ConversionLimits.DEFAULT), root));
+    }
+
+    @Test
+    void tooManyElementsInsideChunkFailsAsSequential() {
+        // Each item is four elements, so the limit is crossed just before the marked item
+        ConversionLimits limits = ConversionLimits.UNLIMITED.withMaxElements(4L * MARKED_ITEM - 10);
+        assertSameFailure(TooManyElementsException.class, document("{\"b\":\"x\"}"), limits);
+    }
+
+    @Test
+    void tooDeepInsideChunkFailsAsSequential() {
+        ConversionLimits limits = ConversionLimits.UNLIMITED.withMaxDepth(20);
+        assertSameFailure(NestingTooDeepException.class, document(nested(30)), limits);
+    }
+
+    @Test
+    void tooLongArrayInsideChunkFailsAsSequential() {
+        ConversionLimits limits = ConversionLimits.UNLIMITED.withMaxArrayLength(ITEMS);
+        assertSameFailure(ArrayTooLongException.class, document("{\"b\":" + array(ITEMS + 1) + "}"), limits);
+    }
+
+    @Test
+    void tooMuchOutputInsideChunkFailsAsSequential() throws JsonHtmlConversionException {
+        String json = document("{\"b\":\"x\"}");
+        int length = render(sequential(OutputFormat.PRETTY, ConversionLimits.UNLIMITED),
+                OrgJsonNode.of(new JSONObject(json))).length();
+        ConversionLimits limits = ConversionLimits.UNLIMITED.withMaxOutputBytes(length / 2);
+        assertSameFailure(OutputTooLargeException.class, json, limits);
+    }
+
+    @Test
+    void earlierLimitWinsOverLaterFailureInSameChunk() {
+        // The element limit is crossed a few items before the too-deep item of the same chunk,
+        // so a sequential build never reaches the depth check
+        ConversionLimits limits = ConversionLimits.UNLIMITED.withMaxDepth(20)
+                .withMaxElements(4L * (MARKED_ITEM - 5));
+        assertSameFailure(TooManyElementsException.class, document(nested(30)), limits);
+    }
+
+    private static void assertSameFailure(Class<? extends LimitExceededException> expected, String json,
+                                          ConversionLimits limits) {
+        JsonNode root = OrgJsonNode.of(new JSONObject(json));
+        LimitExceededException sequential = assertThrows(expected,
+                () -> render(sequential(OutputFormat.PRETTY, limits), root));
+        JsonHtmlConversionException parallel = assertThrows(JsonHtmlConversionException.class,
+                () -> render(parallel(OutputFormat.PRETTY, limits), root));
+        assertInstanceOf(expected, parallel);
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    private static String render(JsonHtmlConverter converter, JsonNode root) throws JsonHtmlConversionException {
+        return converter.convert(root, ConversionMetrics.NOOP);
+    }
+
+    private static JsonHtmlConverter sequential(OutputFormat format, ConversionLimits limits) {
+        return new JsonHtmlConverter(new HtmlElementBuilder(format), limits);
+    }
+
+    private static JsonHtmlConverter parallel(OutputFormat format, ConversionLimits limits) {
+        return new JsonHtmlConverter(
+                new HtmlElementBuilder(format, pool, HtmlElementBuilder.DEFAULT_PARALLEL_THRESHOLD), limits);
+    }
+
+    /**
+     * A body of {@link #ITEMS} sections, each a section, a heading and a span holding an element;
+     * the span of the marked item holds the given value instead.
+     */
+    private static String document(String markedSpan) {
+        StringBuilder json = new StringBuilder("{\"head\":{\"title\":\"Wide\"},\"body\":{\"section\":[");
+        for (int i = 0; i < ITEMS; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"attributes\":{\"id\":\"s").append(i).append("\"},")
+                    .append("\"h2\":\"Section ").append(i).append(" & <more>\",")
+                    .append("\"span\":").append(i == MARKED_ITEM ? markedSpan : "{\"b\":\"x\"}")
+                    .append("}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static String nested(int depth) {
+        return "{\"div\":".repeat(depth) + "\"deep\"" + "}".repeat(depth);
+    }
+
+    private static String array(int length) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(i).append('"');
+        }
+        return json.append(']').toString();
+    }
+}
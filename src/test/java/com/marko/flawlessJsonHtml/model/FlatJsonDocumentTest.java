@@ -0,0 +1,180 @@
+package com.marko.flawlessJsonHtml.model;
+
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.converter.LimitExceededException;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the native document against org.json: the same markup wherever key order cannot
+ * differ, and the documented differences in the grammar the two backends accept.
+ */
+class FlatJsonDocumentTest {
+
+    /**
+     * Documents whose objects have at most one child element, so org.json's hash order and
+     * the native source order cannot disagree.
+     */
+    static Stream<String> documents() {
+        return Stream.of(
+                "{}",
+                "{\"body\":{}}",
+                "{\"doctype\":\"html\",\"language\":\"de\",\"body\":{\"p\":\"Hallo\"}}",
+                "{\"head\":{\"title\":\"T & <t>\"},\"body\":{\"div\":{\"p\":\"text\"}}}",
+                "{\"head\":{\"meta\":{\"charset\":\"utf-8\"}},\"body\":{\"p\":\"x\"}}",
+                "{\"body\":{\"attributes\":{\"class\":\"page\"},\"main\":{\"h1\":\"Title\"}}}",
+                "{\"body\":{\"a\":{\"attributes\":{\"href\":\"/x?a=1&b=\\\"2\\\"\"},\"span\":\"link\"}}}",
+                "{\"body\":{\"img\":{\"src\":\"a.png\"}}}",
+                "{\"body\":{\"br\":{}}}",
+                "{\"body\":{\"ul\":{\"li\":[\"one\",\"two\",{\"b\":\"three\"}]}}}",
+                "{\"body\":{\"ul\":{\"li\":[]}}}",
+                "{\"body\":{\"p\":[[\"a\",\"b\"],[\"c\"]]}}",
+                "{\"body\":{\"p\":\"\\u0026\\u003c \\ud83d\\ude00 \\/ \\\\ \\\"q\\\" \\n\\t end\"}}",
+                "{\"body\":{\"p\":\"café 中文 😀\"}}",
+                // Deeper than the builder's recursion, so both take the iterative path
+                "{\"body\":" + "{\"div\":".repeat(300) + "\"deep\"" + "}".repeat(300) + "}");
+    }
+
+    @ParameterizedTest
+    @MethodSource("documents")
+    void rendersLikeOrgJson(String json) throws JsonHtmlConversionException {
+        for (OutputFormat format : OutputFormat.values()) {
+            JsonHtmlConverter converter = new JsonHtmlConverter(new HtmlElementBuilder(format));
+            assertEquals(render(converter, JsonBackend.ORG_JSON, json), render(converter, JsonBackend.NATIVE, json),
+                    format.name());
+        }
+    }
+
+    @Test
+    void rendersSiblingsInSourceOrder() throws JsonHtmlConversionException {
+        String json = "{\"body\":{\"div\":{\"h1\":\"a\",\"p\":\"b\",\"span\":\"c\",\"em\":\"d\",\"b\":\"e\"}}}";
+        JsonHtmlConverter converter = new JsonHtmlConverter();
+
+        String html = render(converter, JsonBackend.NATIVE, json);
+        assertEquals("<h1>a</h1><p>b</p><span>c</span><em>d</em><b>e</b>",
+                html.substring(html.indexOf("<h1>"), html.indexOf("</b>") + 4).replaceAll("\\s", ""));
+
+        // org.json may reorder them, but renders the same lines
+        assertEquals(sortedLines(render(converter, JsonBackend.ORG_JSON, json)), sortedLines(html));
+    }
+
+    @Test
+    void readsMembersAndValues() throws JsonHtmlConversionException {
+        JsonNode root = FlatJsonDocument.parse(
+                "{\"a\":\"x\\u0041\",\"n\":-1.5e3,\"t\":true,\"z\":null,\"arr\":[1,{\"k\":\"v\"}]}").root();
+
+        assertEquals(5, root.size());
+        assertEquals("a", root.key(0));
+        assertEquals("xA", root.get("a").text());
+        assertEquals(JsonNode.Type.NUMBER, root.get("n").type());
+        assertEquals("-1.5e3", root.get("n").text());
+        assertEquals(JsonNode.Type.BOOLEAN, root.get("t").type());
+        assertEquals(JsonNode.Type.NULL, root.get("z").type());
+        assertEquals(2, root.get("arr").size());
+        assertEquals("v", root.get("arr").value(1).get("k").text());
+        assertNull(root.get("missing"));
+    }
+
+    /**
+     * Inputs org.json tolerates and the strict native grammar rejects, as listed on
+     * {@link JsonBackend#NATIVE}.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Content after the root value
+            "{\"body\":{}} x",
+            "{\"body\":{\"p\":\"x\"}} {}",
+            "{\"body\":{}}}",
+            // Leading zeros
+            "{\"body\":{\"p\":007}}",
+            // Trailing commas
+            "{\"body\":{\"p\":\"x\",}}",
+            "{\"body\":{\"p\":[\"a\",\"b\",]}}",
+            // Unquoted or single-quoted keys and strings
+            "{body:{}}",
+            "{'body':{}}",
+            "{\"body\":{\"p\":'x'}}",
+            // Raw control characters inside strings
+            "{\"body\":{\"p\":\"a\tb\"}}"
+    })
+    void rejectsWhatOrgJsonTolerates(String json) {
+        assertDoesNotThrow(() -> JsonBackend.ORG_JSON.parse(json, ConversionLimits.UNLIMITED));
+
+        JsonHtmlConversionException e = assertThrows(JsonHtmlConversionException.class,
+                () -> JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED));
+        assertFalse(e instanceof LimitExceededException);
+    }
+
+    @Test
+    void keepsDuplicateKeysThatOrgJsonRejects() throws JsonHtmlConversionException {
+        String json = "{\"body\":{\"p\":\"first\",\"p\":\"second\"}}";
+
+        assertThrows(JsonHtmlConversionException.class,
+                () -> JsonBackend.ORG_JSON.parse(json, ConversionLimits.UNLIMITED));
+
+        JsonNode root = JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED);
+        assertEquals(2, root.get("body").size());
+        String html = new JsonHtmlConverter().convert(root, ConversionMetrics.NOOP);
+        assertTrue(html.indexOf("<p>first</p>") < html.indexOf("<p>second</p>"));
+    }
+
+    @Test
+    void rejectsNonObjectRoot() {
+        assertThrows(JsonHtmlConversionException.class,
+                () -> JsonBackend.NATIVE.parse("[{\"body\":{}}]", ConversionLimits.UNLIMITED));
+    }
+
+    @Test
+    void parsesAndRendersDocumentDeeperThanThreadStack() throws InterruptedException {
+        int depth = 50_000;
+        String json = "{\"body\":" + "{\"div\":".repeat(depth) + "\"deep\"" + "}".repeat(depth) + "}";
+        AtomicReference<Object> result = new AtomicReference<>();
+
+        // A small stack that a recursive parse or render of this document would overflow
+        Thread thread = new Thread(null, () -> {
+            try {
+                JsonNode root = JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED);
+                result.set(new JsonHtmlConverter(new HtmlElementBuilder(OutputFormat.MINIFIED))
+                        .convert(root, ConversionMetrics.NOOP));
+            } catch (JsonHtmlConversionException | RuntimeException | StackOverflowError e) {
+                result.set(e);
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        String html = assertInstanceOf(String.class, result.get());
+        assertEquals(depth, html.split("<div>", -1).length - 1);
+        assertEquals(depth, html.split("</div>", -1).length - 1);
+    }
+
+    private static String render(JsonHtmlConverter converter, JsonBackend backend, String json)
+            throws JsonHtmlConversionException {
+        return converter.convert(backend.parse(json, ConversionLimits.UNLIMITED), ConversionMetrics.NOOP);
+    }
+
+    private static String sortedLines(String html) {
+        String[] lines = html.split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+}
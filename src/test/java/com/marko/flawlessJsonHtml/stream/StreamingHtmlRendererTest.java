@@ -0,0 +1,158 @@
+package com.marko.flawlessJsonHtml.stream;
+
+import com.marko.flawlessJsonHtml.converter.ConversionLimits;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConversionException;
+import com.marko.flawlessJsonHtml.converter.JsonHtmlConverter;
+import com.marko.flawlessJsonHtml.html.HtmlElementBuilder;
+import com.marko.flawlessJsonHtml.html.OutputFormat;
+import com.marko.flawlessJsonHtml.metrics.ConversionMetrics;
+import com.marko.flawlessJsonHtml.model.JsonBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the streaming renderer against the tree based converter, and the failures that are
+ * particular to streaming: keys arriving after the lookahead limit and input that ends early.
+ */
+class StreamingHtmlRendererTest {
+
+    /**
+     * Documents with one body element, so the tree path's semantic reordering of body elements
+     * does not apply, and with at most one attribute per element, since attribute maps are read
+     * into org.json objects; other nested keys keep their source order in the native tree.
+     */
+    static Stream<String> documents() {
+        return Stream.of(
+                "{}",
+                "{\"body\":{}}",
+                "{\"doctype\":\"html\",\"language\":\"de\",\"head\":{\"title\":\"T & <t>\"},\"body\":{\"p\":\"x\"}}",
+                "{\"head\":{\"meta\":{\"charset\":\"utf-8\"},\"title\":\"Meta\"},\"body\":{\"p\":\"x\"}}",
+                "{\"body\":{\"attributes\":{\"class\":\"page\"},\"main\":{\"h1\":\"Title\",\"p\":\"Text\"}}}",
+                "{\"body\":{\"div\":{\"attributes\":{\"data-x\":\"<\\\"'>\"},\"p\":\"one\",\"span\":\"two\"}}}",
+                "{\"body\":{\"div\":{\"img\":{\"alt\":\"A & B\"},\"br\":{},\"p\":\"after\"}}}",
+                "{\"body\":{\"ul\":{\"li\":[\"one\",\"two\",{\"b\":\"three\"},[\"nested\",\"array\"]]}}}",
+                "{\"body\":{\"p\":\"\\u0026\\u003c \\ud83d\\ude00 \\/ \\\\ \\\"q\\\" \\n\\t end\"}}",
+                // Out of order, but well within the lookahead limit
+                "{\"body\":{\"p\":\"x\"},\"head\":{\"title\":\"late\"},\"language\":\"fr\",\"doctype\":\"html5\"}",
+                "{\"body\":{\"div\":{\"p\":\"first\",\"attributes\":{\"class\":\"late\"}}}}",
+                "{\"body\":" + "{\"div\":".repeat(600) + "\"deep\"" + "}".repeat(600) + "}");
+    }
+
+    @ParameterizedTest
+    @MethodSource("documents")
+    void rendersLikeTree(String json) throws JsonHtmlConversionException, IOException {
+        for (OutputFormat format : OutputFormat.values()) {
+            JsonHtmlConverter converter = new JsonHtmlConverter(new HtmlElementBuilder(format));
+            String tree = converter.convert(JsonBackend.NATIVE.parse(json, ConversionLimits.UNLIMITED),
+                    ConversionMetrics.NOOP);
+            assertEquals(tree, stream(converter, json), format.name());
+        }
+    }
+
+    @Test
+    void rendersWideDocumentLikeTree() throws JsonHtmlConversionException, IOException {
+        StringBuilder json = new StringBuilder("{\"head\":{\"title\":\"Wide\"},\"body\":{\"section\":[");
+        for (int i = 0; i < 5_000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"attributes\":{\"id\":\"s").append(i)
+                    .append("\"},\"h2\":\"Section ").append(i).append("\",\"p\":\"a & b\"}");
+        }
+        json.append("]}}");
+
+        JsonHtmlConverter converter = new JsonHtmlConverter();
+        assertEquals(converter.convert(JsonBackend.NATIVE.parse(json.toString(), ConversionLimits.UNLIMITED),
+                ConversionMetrics.NOOP), stream(converter, json.toString()));
+    }
+
+    @Test
+    void rejectsLanguageAfterLookaheadLimit() {
+        String json = "{\"body\":{\"p\":\"" + "x".repeat(200) + "\"},\"language\":\"de\"}";
+        JsonHtmlConversionException e = assertThrows(JsonHtmlConversionException.class,
+                () -> stream(new StreamingHtmlRenderer(new HtmlElementBuilder(), 64), json));
+        assertEquals("Key 'language' appeared after the streaming lookahead limit was exceeded", e.getMessage());
+    }
+
+    @Test
+    void rejectsAttributesAfterLookaheadLimit() {
+        String json = "{\"body\":{\"div\":{\"p\":[" + "\"item\",".repeat(50) + "\"last\"],"
+                + "\"attributes\":{\"id\":\"late\"}}}}";
+        JsonHtmlConversionException e = assertThrows(JsonHtmlConversionException.class,
+                () -> stream(new StreamingHtmlRenderer(new HtmlElementBuilder(), 64), json));
+        assertEquals("Key 'attributes of <div>' appeared after the streaming lookahead limit was exceeded",
+                e.getMessage());
+    }
+
+    @Test
+    void rejectsHeadAfterLargeBody() {
+        String json = "{\"body\":{\"p\":\"" + "x".repeat(200) + "\"},\"head\":{\"title\":\"late\"}}";
+        JsonHtmlConversionException e = assertThrows(JsonHtmlConversionException.class,
+                () -> stream(new StreamingHtmlRenderer(new HtmlElementBuilder(), 64), json));
+        assertEquals("\"head\" must precede a large \"body\" in streaming mode", e.getMessage());
+    }
+
+    @Test
+    void acceptsSameLateKeysWithinLookaheadLimit() throws JsonHtmlConversionException, IOException {
+        String json = "{\"body\":{\"div\":{\"p\":\"" + "x".repeat(200) + "\",\"attributes\":{\"id\":\"late\"}}},"
+                + "\"head\":{\"title\":\"late\"},\"language\":\"de\"}";
+        String html = stream(new StreamingHtmlRenderer(new HtmlElementBuilder(), 1024), json);
+        assertTrue(html.contains("<html lang=\"de\">"));
+        assertTrue(html.indexOf("<title>late</title>") < html.indexOf("<div id=\"late\">"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "''                              | JSON document is empty",
+            "'{'                             | Expected field name",
+            "'{\"body'                       | Unterminated string",
+            "'{\"body\"'                     | Expected ':' after field name",
+            "'{\"body\":'                    | Unexpected end of document",
+            "'{\"body\":{\"p\":\"abc'         | Unterminated string",
+            "'{\"body\":{\"p\":\"a\\u00'      | Invalid unicode escape",
+            "'{\"body\":{\"p\":tr'            | Invalid literal",
+            "'{\"body\":{\"p\":[\"a\"'        | Expected ',' or ']' in array",
+            "'{\"body\":{\"p\":\"a\"'         | Expected ',' or '}' in object",
+            "'{\"body\":{\"p\":\"a\"}'        | Expected ',' or '}' in object"
+    })
+    void reportsTruncatedInput(String json, String message) {
+        JsonHtmlConversionException e = assertThrows(JsonHtmlConversionException.class,
+                () -> stream(new JsonHtmlConverter(), json));
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    }
+
+    @Test
+    void rejectsEveryTruncationOfValidDocument() throws JsonHtmlConversionException, IOException {
+        String json = "{\"language\":\"en\",\"head\":{\"title\":\"T\"},\"body\":{\"div\":{\"attributes\":"
+                + "{\"id\":\"a\"},\"p\":[\"x\\u0041\",{\"b\":\"y\"}],\"img\":{\"src\":\"i.png\"}}}}";
+        JsonHtmlConverter converter = new JsonHtmlConverter();
+        stream(converter, json);
+
+        for (int length = 0; length < json.length(); length++) {
+            String prefix = json.substring(0, length);
+            assertThrows(JsonHtmlConversionException.class, () -> stream(converter, prefix), prefix);
+        }
+    }
+
+    private static String stream(JsonHtmlConverter converter, String json)
+            throws JsonHtmlConversionException, IOException {
+        StringWriter html = new StringWriter();
+        converter.convert(new StringReader(json), html);
+        return html.toString();
+    }
+
+    private static String stream(StreamingHtmlRenderer renderer, String json)
+            throws JsonHtmlConversionException, IOException {
+        StringBuilder html = new StringBuilder();
+        renderer.render(new StringReader(json), html);
+        return html.toString();
+    }
+}